@@ -0,0 +1,97 @@
+package com.hyperion.fireworks;
+
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.metrics.FireworksMetrics;
+import com.hyperion.fireworks.render.FireworkRenderer;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs simulation steps off the FX thread. The FX thread draws the engine's last published snapshot and then hands the
+ * next steps to a background thread, which steps the engine (in parallel when the engine has a physics pool) and
+ * publishes a new snapshot. Only one batch of steps is in flight at a time and a batch is only submitted after the
+ * snapshot has been drawn, so the snapshot being drawn is never the one being written.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class AsyncPhysics {
+    private final SimulationEngine engine;
+    private final FireworksMetrics metrics;
+    private       ExecutorService  executor; // Started by the first batch, null after shutdown()
+    private       Future<?>        pending;
+
+    AsyncPhysics(SimulationEngine engine, FireworksMetrics metrics) {
+        this.engine  = engine;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Draws the last published snapshot.
+     */
+    void render(FireworkRenderer renderer, double interpolation) {
+        engine.getSnapshot().render(renderer, interpolation);
+    }
+
+    /**
+     * Submits a batch of steps unless the previous batch is still running.
+     *
+     * @param steps
+     *         The number of steps to run.
+     *
+     * @return true if the batch was submitted, false if the previous batch is still running.
+     */
+    boolean trySubmit(int steps) {
+        if (pending != null) {
+            if (!pending.isDone()) {
+                return false;
+            }
+            rethrowFailure(pending);
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "fireworks-physics");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pending = executor.submit(() -> {
+            long start = System.nanoTime();
+            for (int i = 0; i < steps; i++) {
+                engine.step();
+            }
+            engine.publishSnapshot();
+            metrics.recordPhysics(System.nanoTime() - start);
+        });
+        return true;
+    }
+
+    /**
+     * Stops the physics thread and the engine's parallel threads once the batch in flight is done. Submitting another
+     * batch starts a new physics thread.
+     */
+    void shutdown() {
+        if (executor == null) {
+            engine.shutdown();
+            return;
+        }
+        // The engine is shut down on the physics thread, after the last batch, so no step can race it
+        executor.execute(engine::shutdown);
+        executor.shutdown();
+        executor = null;
+        pending  = null;
+    }
+
+    private static void rethrowFailure(Future<?> step) {
+        try {
+            step.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation step failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,24 +1,44 @@
 package com.hyperion.fireworks;
 
-import com.hyperion.fireworks.firework_styles.*;
+import com.hyperion.fireworks.engine.QualityLevel;
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.engine.Viewport;
+import com.hyperion.fireworks.firework_styles.Firework;
+import com.hyperion.fireworks.firework_styles.FireworkSpec;
+import com.hyperion.fireworks.firework_styles.FireworkType;
+import com.hyperion.fireworks.metrics.FireworksMetrics;
+import com.hyperion.fireworks.metrics.MetricsOverlay;
+import com.hyperion.fireworks.particle.BurstGenerator;
+import com.hyperion.fireworks.pool.PoolStatistics;
+import com.hyperion.fireworks.render.BackgroundImage;
+import com.hyperion.fireworks.render.BatchedCanvasRenderer;
+import com.hyperion.fireworks.render.CanvasFireworkRenderer;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import com.hyperion.fireworks.render.PixelBufferRenderer;
+import com.hyperion.fireworks.render.ReflectionStage;
+import com.hyperion.fireworks.render.SpriteAtlasRenderer;
 import javafx.animation.KeyFrame;
-import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.geometry.Point2D;
+import javafx.scene.Node;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.effect.BlendMode;
-import javafx.scene.effect.Reflection;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.Background;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
 import javafx.util.Duration;
 
-import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
-import java.util.stream.IntStream;
 
 /**
  * FireworksUtil is a utility class designed to draw fireworks on a JavaFX Canvas. The class uses functional programming constructs to offer a more modular and flexible design.
@@ -28,25 +48,28 @@ import java.util.stream.IntStream;
  */
 @SuppressWarnings("unused")
 public class FireworksUtil extends Pane {
-    private final        List<Firework>  fireworks     = new ArrayList<>();
-    private final        Queue<Firework> fireworkQueue = new LinkedList<>();
-    private final        Random          random             = new Random();
-
-    private final Map<Class<? extends Firework>, Double> additionalDelays = Map.of(
-            DoubleExplosionFirework.class, 2.0, // extra 2 seconds for a double explosion
-            LargeFirework.class, 1.5 // extra 1.5 seconds for a large firework
-            // Add more if needed
-    );
-
-    private final Canvas           internalCanvas;
-    private final GraphicsContext  internalGc;
-    private final Timeline         creationTimeline;
-    private final Timeline         updateTimeline;
-    private final double secondsBetweenLaunches;
-    private final double           FPS;
-    private final Point2D          startPos;
-    private final Supplier<Double> launchAngleSupplier;
-    private final Supplier<Double> minLaunchHeightSupplier;
+    private static final String   DEFAULT_BACKGROUND      = "/Images/City Night Skyline.jpg";
+    private static final Duration BACKGROUND_RESIZE_DELAY = Duration.millis(250); // Settle time before decoding at a new size
+    private static final double   DEFAULT_PULSE_RATE      = 60; // Pulses per second of the JavaFX animation timer
+
+    private final Canvas            internalCanvas;
+    private final Viewport          viewport;
+    private final SimulationEngine  engine;
+    private final FireworkRenderer  renderer;
+    private final Node              surface; // The node the renderer draws into
+    private final Timeline          updateTimeline;
+    private final FixedTimestepLoop fixedTimestepLoop;
+    private final AsyncPhysics      asyncPhysics;
+    private final ReflectionStage   reflectionStage;
+    private final QualityGovernor   qualityGovernor;
+    private final FireworksMetrics  metrics;
+    private final MetricsOverlay    metricsOverlay; // Null unless the HUD is enabled
+    private final String            metricsName; // Null when the metrics are not published over JMX
+    private final LoopMode          loopMode;
+    private final double            FPS;
+
+    private final CompletableFuture<Void> warmUp; // Done right away when the display does not warm up
+    private       boolean                 startPending = false; // start() was called before the warm-up was done
 
     /**
      * Initializes the canvas, graphics context, and other settings with a customizable batch size.
@@ -56,19 +79,84 @@ public class FireworksUtil extends Pane {
      */
     public FireworksUtil(Builder builder) {
         internalCanvas = new Canvas(builder.width, builder.height);
-        internalGc     = internalCanvas.getGraphicsContext2D();
+        viewport       = new Viewport(builder.width, builder.height);
+        renderer       = createRenderer(builder, internalCanvas);
+        // The pixel buffer backend draws into its own image; the canvas then only carries the size
+        surface        = renderer instanceof PixelBufferRenderer pixelBufferRenderer ? pixelBufferRenderer.getView() : internalCanvas;
+
+        reflectionStage = setupInternalCanvas(builder);
+
+        FPS = 1 / builder.frameRate;
+
+        engine = engineBuilder(builder).viewport(viewport)
+                                             .startPos(builder.startPos)
+                                             .launchAngleSupplier(builder.launchAngleSupplier)
+                                             .minLaunchHeightSupplier(builder.minLaunchHeightSupplier)
+                                             .build();
+        warmUp = builder.warmUpSteps > 0 ? startWarmUp(builder) : CompletableFuture.completedFuture(null);
+
+        loopMode          = builder.loopMode;
+        metrics           = new FireworksMetrics(engine, renderer);
+        metricsName       = builder.metricsName;
+        metricsOverlay    = builder.showMetricsOverlay ? new MetricsOverlay(metrics) : null;
+        asyncPhysics      = builder.physicsThreads > 1 ? new AsyncPhysics(engine, metrics) : null;
+        updateTimeline    = createDrawingTimeLine();
+        qualityGovernor   = new QualityGovernor(repaintRate(builder));
+        fixedTimestepLoop = new FixedTimestepLoop(engine, renderer, asyncPhysics, qualityGovernor, metrics, builder.maxCatchUpSteps);
+
+        if (metricsOverlay != null) {
+            getChildren().add(metricsOverlay);
+        }
 
-        setupInternalCanvas(builder);
+        qualityGovernor.levelProperty().addListener((observable, oldLevel, newLevel) -> applyQuality(newLevel));
+        if (!builder.adaptiveQuality) {
+            qualityGovernor.lock(QualityLevel.HIGH);
+        }
+    }
 
-        secondsBetweenLaunches = builder.secondsBetweenLaunches;
-        FPS                            = 1 / builder.frameRate;
-        startPos                       = builder.startPos;
-        launchAngleSupplier = builder.launchAngleSupplier;
-        minLaunchHeightSupplier = builder.minLaunchHeightSupplier;
+    /**
+     * @return The rate the screen is repainted at, which the quality governor holds: the frame rate of the Timeline, or
+     * the pulse rate with {@link LoopMode#FIXED_TIMESTEP}, where the frame rate is the simulation rate only.
+     */
+    static double repaintRate(Builder builder) {
+        if (builder.targetFrameRate > 0) {
+            return builder.targetFrameRate;
+        }
+        return builder.loopMode == LoopMode.FIXED_TIMESTEP ? DEFAULT_PULSE_RATE : builder.frameRate;
+    }
 
-        creationTimeline = createLaunchTimeline(builder);
+    private static SimulationEngine.Builder engineBuilder(Builder builder) {
+        return new SimulationEngine.Builder().frameRate(builder.frameRate)
+                                             .poolCapacity(builder.poolCapacity)
+                                             .parallelism(builder.physicsThreads)
+                                             .particleBudget(builder.particleBudget)
+                                             .paletteSize(builder.paletteSize)
+                                             .paletteRefreshInterval(builder.paletteRefreshInterval)
+                                             .burstAngleSteps(builder.burstAngleSteps)
+                                             .seed(builder.seed)
+                                             .cullMargin(builder.cullMargin)
+                                             .tailLengths(builder.tailLengths)
+                                             .fireworkSpecs(builder.fireworkSpecs)
+                                             .launchInterval(builder.secondsBetweenLaunches)
+                                             .launchJitter(builder.launchJitter)
+                                             .maxBatchSize(builder.maxBatchSize);
+    }
 
-        updateTimeline = createDrawingTimeLine();
+    private CompletableFuture<Void> startWarmUp(Builder builder) {
+        // The scratch engine steps on the warm-up thread, so it is not handed the caller's suppliers
+        SimulationEngine scratch = engineBuilder(builder).viewport(new Viewport(builder.width, builder.height))
+                                                         .startPos(builder.startPos)
+                                                         .build();
+        return WarmUp.start(engine, scratch, builder.warmUpSteps);
+    }
+
+    private static FireworkRenderer createRenderer(Builder builder, Canvas canvas) {
+        return switch (builder.renderMode) {
+            case DIRECT -> new CanvasFireworkRenderer(canvas);
+            case BATCHED -> new BatchedCanvasRenderer(canvas);
+            case SPRITE_ATLAS -> new SpriteAtlasRenderer(canvas, builder.spriteCacheSize, builder.spriteIdleFrames, builder.atlasRebuildInterval);
+            case PIXEL_BUFFER -> new PixelBufferRenderer(builder.rasterThreads);
+        };
     }
 
     private Timeline createDrawingTimeLine() {
@@ -77,102 +165,187 @@ public class FireworksUtil extends Pane {
         return updateTimeline;
     }
 
-    private Timeline createLaunchTimeline(Builder builder) {
-        final Timeline creationTimeline = new Timeline(new KeyFrame(Duration.seconds(secondsBetweenLaunches), e -> launchFireworks(builder.maxBatchSize)));
-        creationTimeline.setCycleCount(Timeline.INDEFINITE);
-        return creationTimeline;
-    }
-
-    private void setupInternalCanvas(Builder builder) {
+    private ReflectionStage setupInternalCanvas(Builder builder) {
         ImageView background = getBackground(builder);
 
-        internalCanvas.setBlendMode(BlendMode.ADD);
-        internalCanvas.setEffect(new Reflection(0, 0.4, 0.15, 0));
-        getChildren().addAll(background, internalCanvas);
+        // Keep the simulation's logical bounds in sync with the canvas
+        InvalidationListener resizeViewport = observable -> viewport.setSize(internalCanvas.getWidth(), internalCanvas.getHeight());
+        internalCanvas.widthProperty().addListener(resizeViewport);
+        internalCanvas.heightProperty().addListener(resizeViewport);
+
+        if (surface instanceof ImageView view) {
+            view.fitWidthProperty().bind(internalCanvas.widthProperty());
+            view.fitHeightProperty().bind(internalCanvas.heightProperty());
+        }
+        surface.setBlendMode(BlendMode.ADD);
+        getChildren().addAll(background, surface);
+
+        if (builder.reflectionQuality == ReflectionQuality.OFF) {
+            return null;
+        }
+        // Mirror the bottom 40% of the surface below it, fading from 0.15 to 0 opacity
+        ReflectionStage stage = new ReflectionStage(surface, internalCanvas.widthProperty(), internalCanvas.heightProperty(), builder.reflectionQuality.getScale(),
+                                                    0.4, 0.15, 0, builder.reflectionUpdateInterval);
+        getChildren().add(stage.getView());
+        return stage;
     }
 
     private ImageView getBackground(Builder builder) {
-        ImageView background = builder.background;
+        // Shown until the background image has decoded
+        setBackground(Background.fill(builder.backgroundPlaceholder));
 
-        Consumer<ImageView> setBackgroundProperties = imageView -> {
-            imageView.fitHeightProperty()
-                     .bind(internalCanvas.heightProperty());
-            imageView.fitWidthProperty()
-                     .bind(internalCanvas.widthProperty());
-        };
+        ImageView background = builder.background;
+        if (background == null) {
+            URL defaultBackground = FireworksUtil.class.getResource(DEFAULT_BACKGROUND);
+            if (builder.backgroundUrl == null && defaultBackground == null) {
+                return new ImageView(); // The bundled skyline is not packaged, so the placeholder stays
+            }
+            String url = builder.backgroundUrl != null ? builder.backgroundUrl : defaultBackground.toExternalForm();
+            return new BackgroundImage(url, internalCanvas.widthProperty(), internalCanvas.heightProperty(), BACKGROUND_RESIZE_DELAY).getView();
+        }
 
-        setBackgroundProperties.accept(background);
+        background.fitHeightProperty()
+                  .bind(internalCanvas.heightProperty());
+        background.fitWidthProperty()
+                  .bind(internalCanvas.widthProperty());
         return background;
     }
 
-    private void launchFireworks(int n) {
-        AtomicReference<Double> maxExtraDelay = new AtomicReference<>(0.0);
-        List<Firework> batch = IntStream.range(0, n)
-                                        .mapToObj(i -> Optional.ofNullable(fireworkQueue.poll()))
-                                        .map(optionalFirework -> optionalFirework.orElseGet(this::createRandomFirework))
-                                        .peek(firework -> {
-                                            // Calculate extra delay based on firework type
-                                            double extraDelay = additionalDelays.getOrDefault(firework.getClass(), 0.0);
-                                            maxExtraDelay.updateAndGet(currentMax -> Math.max(currentMax, extraDelay));
-                                        })
-                                        .toList();
-
-        fireworks.addAll(batch);
-
-        // Update the launch timeline to include the extra delay
-        double normalDelay = secondsBetweenLaunches;
-        double newDelay = normalDelay + maxExtraDelay.get();
-        creationTimeline.stop();
-        creationTimeline.getKeyFrames().setAll(new KeyFrame(Duration.seconds(newDelay), e -> launchFireworks(n)));
-        creationTimeline.playFromStart();
-
-        // Schedule the timeline to reset to normal delay after this launch
-        PauseTransition resetDelay = new PauseTransition(Duration.seconds(newDelay));
-        resetDelay.setOnFinished(event -> resetCreationTimeline(normalDelay, n));
-        resetDelay.play();
-    }
-
-    private void resetCreationTimeline(double normalDelay, int maxBatchSize) {
-        double delay = Math.random() > .5 ? normalDelay : normalDelay/2;
-        creationTimeline.stop();
-        creationTimeline.getKeyFrames().setAll(new KeyFrame(Duration.seconds(delay), e -> launchFireworks(maxBatchSize)));
-        creationTimeline.playFromStart();
-    }
-
-    private Firework createRandomFirework() {
-        FireworkType     fireworkType        = FireworkType.values()[random.nextInt(FireworkType.values().length)];
-//        FireworkType     fireworkType        = FireworkType.MEDIUM;
-        return switch (fireworkType) {
-            case STROBE -> new StrobeFirework(startPos, internalCanvas, launchAngleSupplier, FPS, minLaunchHeightSupplier);
-            case SPARKLE -> new SparkleFirework(startPos, internalCanvas, launchAngleSupplier, FPS, minLaunchHeightSupplier);
-            case SMALL -> new SmallFirework(startPos, internalCanvas, launchAngleSupplier, FPS, minLaunchHeightSupplier);
-            case MEDIUM -> new MediumFirework(startPos, internalCanvas, launchAngleSupplier, FPS, minLaunchHeightSupplier);
-            case LARGE -> new LargeFirework(startPos, internalCanvas, launchAngleSupplier, FPS, minLaunchHeightSupplier);
-            case DOUBLE -> new DoubleExplosionFirework(startPos, internalCanvas, launchAngleSupplier, FPS, minLaunchHeightSupplier);
-            // Add more cases if you have more firework types
-        };
+    private void applyQuality(QualityLevel qualityLevel) {
+        engine.setQualityLevel(qualityLevel);
+        surface.setBlendMode(qualityLevel.isEffectsEnabled() ? BlendMode.ADD : null);
+        if (reflectionStage != null) {
+            reflectionStage.setEnabled(qualityLevel.isEffectsEnabled());
+        }
     }
 
     private void drawFrame() {
-        internalGc.clearRect(0, 0, internalCanvas.getWidth(), internalCanvas.getHeight());
-
-        fireworks.forEach(firework -> {
-            firework.move();
-            firework.draw();
-        });
-
-        // Remove fireworks that have moved off the screen or reached their target distance
-        fireworks.removeIf(Firework::isDead);
+        long start = System.nanoTime();
+        long physicsEnd;
+        qualityGovernor.frame(start);
+        if (asyncPhysics == null) {
+            engine.step();
+            physicsEnd = System.nanoTime();
+            engine.render(renderer);
+        } else {
+            // Draw the last published step, then let the physics thread work on the next one
+            physicsEnd = start;
+            asyncPhysics.render(renderer, 1.0);
+            asyncPhysics.trySubmit(1);
+        }
+        metrics.recordFrame(start, physicsEnd - start, System.nanoTime() - physicsEnd);
     }
 
+    /**
+     * Starts the show. While the warm-up is still running, the show starts on the FX thread as soon as it is done.
+     */
     public void start() {
-        creationTimeline.play();
-        updateTimeline.play();
+        if (warmUp.isDone()) {
+            play();
+        } else if (!startPending) {
+            startPending = true;
+            // A failed warm-up only costs the priming, so the show starts either way
+            warmUp.whenComplete((unused, failure) -> Platform.runLater(() -> {
+                if (startPending) {
+                    startPending = false;
+                    play();
+                }
+            }));
+        }
     }
 
+    private void play() {
+        if (metricsName != null && !metrics.isRegistered()) {
+            metrics.register(metricsName);
+        }
+        if (metricsOverlay != null) {
+            metricsOverlay.start();
+        }
+        if (reflectionStage != null) {
+            reflectionStage.start();
+        }
+        switch (loopMode) {
+            case TIMELINE -> updateTimeline.play();
+            case FIXED_TIMESTEP -> fixedTimestepLoop.start();
+        }
+    }
+
+    /**
+     * Stops the show and the threads it runs on. A stopped show may be started again.
+     */
     public void stop() {
-        creationTimeline.stop();
+        startPending = false;
         updateTimeline.stop();
+        fixedTimestepLoop.stop();
+        if (asyncPhysics != null) {
+            asyncPhysics.shutdown();
+        } else {
+            engine.shutdown();
+        }
+        renderer.shutdown();
+        qualityGovernor.pause();
+        metrics.pause();
+        if (reflectionStage != null) {
+            reflectionStage.stop();
+        }
+        if (metricsOverlay != null) {
+            metricsOverlay.stop();
+        }
+        metrics.unregister();
+    }
+
+    /**
+     * @return The number of simulation steps dropped by the {@link LoopMode#FIXED_TIMESTEP} loop to recover from stalls.
+     */
+    public long getDroppedSteps() {
+        return fixedTimestepLoop.getDroppedSteps();
+    }
+
+    /**
+     * @return A future completed when the warm-up is done, or completed already when the display does not warm up.
+     */
+    public CompletableFuture<Void> getWarmUp() {
+        return warmUp.copy();
+    }
+
+    /**
+     * @return The runtime metrics of this show, also published over JMX while the show runs if it was given a metrics name.
+     */
+    public FireworksMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The governor that picks the detail level; observe or lock the level through it.
+     */
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+
+    /**
+     * @return The number of Canvas drawing and state-change calls issued for the last frame.
+     */
+    public int getLastFrameCommandCount() {
+        return renderer.getLastFrameCommandCount();
+    }
+
+    /**
+     * Returns the recycling counters of the pool for the given firework type.
+     *
+     * @param fireworkType
+     *         The firework type.
+     *
+     * @return A snapshot of the pool's hit, miss and high-water counters.
+     */
+    public PoolStatistics getPoolStatistics(FireworkType fireworkType) {
+        return engine.getPoolStatistics(fireworkType);
+    }
+
+    /**
+     * @return The headless simulation driving this display.
+     */
+    public SimulationEngine getEngine() {
+        return engine;
     }
 
     public void bindCanvasSize(ReadOnlyDoubleProperty widthProperty, ReadOnlyDoubleProperty heightProperty) {
@@ -189,12 +362,38 @@ public class FireworksUtil extends Pane {
         private double           width                          = 800; // default width
         private double           height                         = 600; // default height
         private double           frameRate                      = 60;
-        private double secondsBetweenLaunches = 3.0;
-        private Supplier<Double> launchAngleSupplier     = () -> Math.toRadians(60 + (Math.random() * 60));
+        private double           secondsBetweenLaunches         = 3.0;
+        private double           launchJitter                   = 0.5; // largest fraction of the gap between batches cut off at random
+        private int              poolCapacity                   = 16; // idle fireworks kept per type
+        private int              particleBudget                 = 10_000; // most live particles, 0 for no limit
+        private int              paletteSize                    = 128; // pre-generated paints handed out at any time
+        private int              paletteRefreshInterval         = 30; // steps between two palette paint replacements
+        private int              burstAngleSteps                = BurstGenerator.DEFAULT_ANGLE_STEPS; // directions particles can fly in
+        private Long             seed                           = null; // null seeds every run differently
+        private double           cullMargin                     = 32; // pixels outside the canvas before particles are culled
+        private final Map<FireworkType, Integer> tailLengths    = new EnumMap<>(FireworkType.class); // overrides of the type defaults
+        private final Map<FireworkType, FireworkSpec> fireworkSpecs = new EnumMap<>(FireworkType.class); // overrides of the type defaults
+        private LoopMode         loopMode                       = LoopMode.TIMELINE;
+        private RenderMode       renderMode                     = RenderMode.DIRECT;
+        private int              spriteCacheSize                = 256; // paints kept in the SPRITE_ATLAS atlas
+        private int              spriteIdleFrames               = 600; // frames an undrawn paint stays in the atlas
+        private int              atlasRebuildInterval           = 1; // minimum frames between atlas snapshots
+        private int              rasterThreads                  = Runtime.getRuntime().availableProcessors();
+        private ReflectionQuality reflectionQuality            = ReflectionQuality.FULL;
+        private int              reflectionUpdateInterval       = 1; // pulses between reflection updates
+        private boolean          adaptiveQuality                = true; // lower the detail when frames run late
+        private double           targetFrameRate                = 0; // repaints per second the governor holds, 0 for the loop's own
+        private String           metricsName                    = null; // JMX name of the metrics, null to not publish
+        private boolean          showMetricsOverlay             = false;
+        private int              maxCatchUpSteps                = 5; // most simulation steps per pulse in FIXED_TIMESTEP
+        private int              physicsThreads                 = 1; // 1 steps the simulation on the FX thread
+        private int              warmUpSteps                    = 0; // off-screen steps run before the show starts, 0 for none
+        private Supplier<Double> launchAngleSupplier     = null; // null lets every firework pick 60 to 120 degrees itself
         private Supplier<Double> minLaunchHeightSupplier = null;
         private Point2D          startPos                = null;
-        private ImageView        background                     = new ImageView(Objects.requireNonNull(getClass().getResource("/Images/City Night Skyline.jpg"))
-                                                                                       .toExternalForm());
+        private ImageView        background                     = null; // null loads backgroundUrl in the background
+        private String           backgroundUrl                  = null; // null shows the bundled skyline, if packaged
+        private Paint            backgroundPlaceholder          = Color.BLACK; // shown until the background has decoded
 
         // methods to set the builder fields
         public Builder maxBatchSize(int maxBatchSize) {
@@ -217,11 +416,215 @@ public class FireworksUtil extends Pane {
             return this;
         }
 
+        /**
+         * Sets how irregular the launches are: the largest fraction of {@link #secondsBetweenLaunches}, from 0 to 1, a
+         * gap between two batches may be shortened by.
+         */
+        public Builder launchJitter(double launchJitter) {
+            this.launchJitter = launchJitter;
+            return this;
+        }
+
+        public Builder poolCapacity(int poolCapacity) {
+            this.poolCapacity = poolCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the most particles that may be alive at once, a hard ceiling on the work per frame. Launches that would
+         * exceed it are shrunk or deferred and explosions get fewer particles; 0 disables the limit.
+         */
+        public Builder particleBudget(int particleBudget) {
+            this.particleBudget = particleBudget;
+            return this;
+        }
+
+        /**
+         * Sets the number of pre-generated paints the fireworks pick their colors from. A larger palette gives more
+         * variety; the paints are generated once when the display is built.
+         */
+        public Builder paletteSize(int paletteSize) {
+            this.paletteSize = paletteSize;
+            return this;
+        }
+
+        /**
+         * Sets how many simulation steps apart one paint of the palette is replaced by a new one, so the colors keep
+         * changing over a long show; 0 keeps the palette fixed.
+         */
+        public Builder paletteRefreshInterval(int paletteRefreshInterval) {
+            this.paletteRefreshInterval = paletteRefreshInterval;
+            return this;
+        }
+
+        /**
+         * Sets the angular resolution of explosions: the number of evenly spaced directions particles can fly in. The
+         * directions are looked up in precomputed tables, so a higher resolution costs memory, not speed.
+         */
+        public Builder burstAngleSteps(int burstAngleSteps) {
+            this.burstAngleSteps = burstAngleSteps;
+            return this;
+        }
+
+        /**
+         * Fixes the seed of every random choice of the show: firework types, trajectories, colors, explosions and the
+         * delays between launches. Two runs with the same seed launch the same fireworks, which makes performance
+         * comparisons repeatable; null (the default) gives a different show every run.
+         */
+        public Builder seed(Long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets how far outside the canvas, in pixels, particles stay drawn. Beyond it particles are not drawn, and the
+         * ones that can never fly back into view are retired early instead of fading out off-screen.
+         */
+        public Builder cullMargin(double cullMargin) {
+            this.cullMargin = cullMargin;
+            return this;
+        }
+
+        /**
+         * Sets the number of tail positions drawn behind rockets of the given type at full detail, overriding the
+         * type's own default; at most {@link com.hyperion.fireworks.firework_styles.Trail#MAX_LENGTH}. The adaptive
+         * quality governor shortens tails proportionally.
+         */
+        public Builder tailLength(FireworkType fireworkType, int tailLength) {
+            tailLengths.put(fireworkType, tailLength);
+            return this;
+        }
+
+        /**
+         * Plays the given spec for fireworks of the given type instead of the type's default spec, for instance to change
+         * the explosion of a style or how often it is launched.
+         */
+        public Builder fireworkSpec(FireworkType fireworkType, FireworkSpec fireworkSpec) {
+            fireworkSpecs.put(fireworkType, fireworkSpec);
+            return this;
+        }
+
+        /**
+         * Sets the frame rate. With {@link LoopMode#TIMELINE} this is both the simulation and the repaint rate; with
+         * {@link LoopMode#FIXED_TIMESTEP} it is the simulation rate only and the screen repaints on every pulse.
+         */
         public Builder frameRate(double frameRate) {
             this.frameRate = frameRate;
             return this;
         }
 
+        /**
+         * Sets the number of threads that move fireworks. Above 1, physics runs on a ForkJoin pool off the FX thread and
+         * the FX thread only draws the last published snapshot.
+         */
+        public Builder physicsThreads(int physicsThreads) {
+            this.physicsThreads = physicsThreads;
+            return this;
+        }
+
+        public Builder loopMode(LoopMode loopMode) {
+            this.loopMode = loopMode;
+            return this;
+        }
+
+        public Builder renderMode(RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        /**
+         * Sets the number of paints the {@link RenderMode#SPRITE_ATLAS} atlas holds; the least recently drawn paint is
+         * evicted when it is full.
+         */
+        public Builder spriteCacheSize(int spriteCacheSize) {
+            this.spriteCacheSize = spriteCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets how many frames a paint may go undrawn before it is evicted from the atlas; 0 keeps paints until the atlas
+         * is full.
+         */
+        public Builder spriteIdleFrames(int spriteIdleFrames) {
+            this.spriteIdleFrames = spriteIdleFrames;
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of frames between two rebuilds of the atlas image after its paints changed. Paints
+         * added in between are drawn with {@code fillOval} until the next rebuild.
+         */
+        public Builder atlasRebuildInterval(int atlasRebuildInterval) {
+            this.atlasRebuildInterval = atlasRebuildInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads that rasterize bands of the frame with {@link RenderMode#PIXEL_BUFFER}; 1 rasterizes
+         * on the FX thread.
+         */
+        public Builder rasterThreads(int rasterThreads) {
+            this.rasterThreads = rasterThreads;
+            return this;
+        }
+
+        public Builder reflectionQuality(ReflectionQuality reflectionQuality) {
+            this.reflectionQuality = reflectionQuality;
+            return this;
+        }
+
+        /**
+         * Sets the number of pulses between two updates of the reflection; 2 redraws the reflection at half the frame
+         * rate.
+         */
+        public Builder reflectionUpdateInterval(int reflectionUpdateInterval) {
+            this.reflectionUpdateInterval = reflectionUpdateInterval;
+            return this;
+        }
+
+        /**
+         * Enables the {@link QualityGovernor}, which lowers particle counts, tail length, batch size and effects while
+         * frames take longer than {@code 1 / targetFrameRate} and raises them again once they are back on time. When
+         * disabled the show stays at {@link QualityLevel#HIGH}.
+         */
+        public Builder adaptiveQuality(boolean adaptiveQuality) {
+            this.adaptiveQuality = adaptiveQuality;
+            return this;
+        }
+
+        /**
+         * Sets the repaint rate the {@link QualityGovernor} holds. By default it is the frame rate with
+         * {@link LoopMode#TIMELINE} and the JavaFX pulse rate of 60 with {@link LoopMode#FIXED_TIMESTEP}, whose frame
+         * rate only sets the simulation rate; set it when the display refreshes at another rate.
+         */
+        public Builder targetFrameRate(double targetFrameRate) {
+            this.targetFrameRate = targetFrameRate;
+            return this;
+        }
+
+        /**
+         * Sets the name the metrics are published under while the show runs, as
+         * {@code com.hyperion.fireworks:type=FireworksMetrics,name=<metricsName>}. Shows running in the same JVM need
+         * different names. By default, or with null, the metrics are not published.
+         */
+        public Builder metricsName(String metricsName) {
+            this.metricsName = metricsName;
+            return this;
+        }
+
+        /**
+         * Shows frame times, counts and the quality level in the top-left corner.
+         */
+        public Builder showMetricsOverlay(boolean showMetricsOverlay) {
+            this.showMetricsOverlay = showMetricsOverlay;
+            return this;
+        }
+
+        public Builder maxCatchUpSteps(int maxCatchUpSteps) {
+            this.maxCatchUpSteps = maxCatchUpSteps;
+            return this;
+        }
+
         public Builder startPos(Point2D startPos) {
             this.startPos = startPos;
             return this;
@@ -237,11 +640,39 @@ public class FireworksUtil extends Pane {
             return this;
         }
 
+        /**
+         * Shows the given view behind the fireworks as is, instead of loading {@link #backgroundUrl(String)}.
+         */
         public Builder background(ImageView background) {
             this.background = background;
             return this;
         }
 
+        /**
+         * Sets the image behind the fireworks. It is decoded off the FX thread at the size of the canvas and shared with
+         * every other display showing it at that size.
+         */
+        public Builder backgroundUrl(String backgroundUrl) {
+            this.backgroundUrl = backgroundUrl;
+            return this;
+        }
+
+        public Builder backgroundPlaceholder(Paint backgroundPlaceholder) {
+            this.backgroundPlaceholder = backgroundPlaceholder;
+            return this;
+        }
+
+        /**
+         * Warms the display up on a background thread before its show starts: fills the firework pools and runs the given
+         * number of steps of an off-screen show of every firework type, so the first explosions run at steady-state frame
+         * times. {@link FireworksUtil#start()} waits for the warm-up; {@link FireworksUtil#getWarmUp()} tells when it is
+         * done. 0 turns the warm-up off.
+         */
+        public Builder warmUpSteps(int warmUpSteps) {
+            this.warmUpSteps = warmUpSteps;
+            return this;
+        }
+
         // build method
         public FireworksUtil build() {
             startPos                = Optional.ofNullable(startPos).orElse(new Point2D(width / 2, height));
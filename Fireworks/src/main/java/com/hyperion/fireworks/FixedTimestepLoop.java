@@ -0,0 +1,114 @@
+package com.hyperion.fireworks;
+
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.metrics.FireworksMetrics;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import javafx.animation.AnimationTimer;
+
+/**
+ * A fixed-timestep game loop driven by AnimationTimer pulses. The time elapsed between pulses is added to an accumulator
+ * and the simulation is stepped once for every whole time step in it, so the simulation rate stays at the configured
+ * frame rate no matter how often the screen repaints. Rendering happens once per pulse, interpolated between the last
+ * two steps by the fraction of a step left in the accumulator.
+ * <p>
+ * After a long stall the loop runs at most {@code maxCatchUpSteps} steps in a single pulse and drops the rest of the
+ * backlog, so a slow machine cannot fall into a spiral of ever longer catch-up frames.
+ * <p>
+ * With {@link AsyncPhysics} the due steps are handed to the physics thread instead and the pulse draws the last
+ * published snapshot; if the physics thread is still busy, the steps stay in the accumulator for the next pulse.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class FixedTimestepLoop extends AnimationTimer {
+    private final SimulationEngine engine;
+    private final FireworkRenderer renderer;
+    private final AsyncPhysics     asyncPhysics;
+    private final QualityGovernor  qualityGovernor;
+    private final FireworksMetrics metrics;
+    private final long             stepNanos;
+    private final int              maxCatchUpSteps;
+
+    private long lastPulse    = -1;
+    private long accumulator  = 0;
+    private long droppedSteps = 0;
+
+    /**
+     * Constructs a FixedTimestepLoop.
+     *
+     * @param engine
+     *         The engine to step and render.
+     * @param renderer
+     *         The renderer to draw with.
+     * @param asyncPhysics
+     *         Runs the steps off the FX thread, or null to step on the FX thread.
+     * @param qualityGovernor
+     *         Is told about every drawn frame.
+     * @param metrics
+     *         Records the time spent stepping and drawing.
+     * @param maxCatchUpSteps
+     *         The most steps run in a single pulse.
+     */
+    FixedTimestepLoop(SimulationEngine engine, FireworkRenderer renderer, AsyncPhysics asyncPhysics, QualityGovernor qualityGovernor, FireworksMetrics metrics,
+                      int maxCatchUpSteps) {
+        this.engine          = engine;
+        this.renderer        = renderer;
+        this.asyncPhysics    = asyncPhysics;
+        this.qualityGovernor = qualityGovernor;
+        this.metrics         = metrics;
+        this.stepNanos       = Math.round(engine.getTimeStep() * 1_000_000_000L);
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+    }
+
+    @Override
+    public void handle(long now) {
+        qualityGovernor.frame(now);
+        if (lastPulse < 0) {
+            lastPulse = now;
+        }
+        accumulator += now - lastPulse;
+        lastPulse = now;
+
+        long steps = accumulator / stepNanos;
+        if (steps > maxCatchUpSteps) {
+            // Drop the backlog beyond the catch-up limit rather than carrying it into the next pulse
+            droppedSteps += steps - maxCatchUpSteps;
+            accumulator -= (steps - maxCatchUpSteps) * stepNanos;
+            steps = maxCatchUpSteps;
+        }
+
+        long start = System.nanoTime();
+        long physicsEnd;
+        if (asyncPhysics == null) {
+            for (int i = 0; i < steps; i++) {
+                engine.step();
+            }
+            accumulator -= steps * stepNanos;
+            physicsEnd = System.nanoTime();
+            engine.render(renderer, (double) accumulator / stepNanos);
+        } else {
+            physicsEnd = start;
+            asyncPhysics.render(renderer, (double) (accumulator % stepNanos) / stepNanos);
+            if (steps > 0 && asyncPhysics.trySubmit((int) steps)) {
+                accumulator -= steps * stepNanos;
+            }
+        }
+        metrics.recordFrame(now, physicsEnd - start, System.nanoTime() - physicsEnd);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        // Do not count the time spent stopped as simulation time
+        lastPulse = -1;
+        qualityGovernor.pause();
+        metrics.pause();
+    }
+
+    /**
+     * @return The number of simulation steps skipped because a pulse fell more than {@code maxCatchUpSteps} behind.
+     */
+    long getDroppedSteps() {
+        return droppedSteps;
+    }
+}
@@ -0,0 +1,20 @@
+package com.hyperion.fireworks;
+
+/**
+ * Selects how {@link FireworksUtil} drives the simulation and the repaint.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public enum LoopMode {
+    /**
+     * A Timeline KeyFrame steps and repaints once every {@code 1 / frameRate} seconds. A stall on the FX thread slows
+     * the whole show down.
+     */
+    TIMELINE,
+    /**
+     * An AnimationTimer repaints on every pulse and steps the simulation at {@code frameRate} steps per second from an
+     * accumulator, catching up after stalls and interpolating positions between steps.
+     */
+    FIXED_TIMESTEP
+}
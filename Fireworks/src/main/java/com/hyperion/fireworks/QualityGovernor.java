@@ -0,0 +1,149 @@
+package com.hyperion.fireworks;
+
+import com.hyperion.fireworks.engine.QualityLevel;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+
+/**
+ * Holds the show at a target frame time by moving between {@link QualityLevel}s. Every drawn frame reports its time; the
+ * governor keeps a moving average of the time between frames and steps one level down when the average stays above the
+ * budget, and one level up when it has stayed within the budget for a long while.
+ * <p>
+ * The thresholds are deliberately apart so the level does not flap: a level is only lowered after
+ * {@value #DOWNGRADE_FRAMES} slow frames in a row and only raised after a much longer run of frames within the budget.
+ * If a raised level has to be lowered again before it proved itself, the wait before the next attempt doubles.
+ * <p>
+ * The current level is observable through {@link #levelProperty()}, and {@link #lock(QualityLevel)} pins it. The
+ * governor must be used on the JavaFX Application Thread.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class QualityGovernor {
+    private static final double SMOOTHING           = 0.1; // Weight of the newest frame in the moving average
+    private static final double DOWNGRADE_RATIO     = 1.25; // Average frame time, relative to the budget, that counts as slow
+    private static final double UPGRADE_RATIO       = 1.05; // Average frame time, relative to the budget, that counts as on time
+    private static final int    WARM_UP_FRAMES      = 60; // Frames ignored at start, while the JIT is still compiling
+    private static final int    DOWNGRADE_FRAMES    = 30;
+    private static final int    BASE_UPGRADE_FRAMES = 300;
+    private static final int    MAX_UPGRADE_FRAMES  = 4800;
+
+    private final ReadOnlyObjectWrapper<QualityLevel> level = new ReadOnlyObjectWrapper<>(this, "level", QualityLevel.HIGH);
+    private final double                              budgetNanos;
+
+    private boolean locked            = false;
+    private long    lastFrame         = -1;
+    private long    frames            = 0;
+    private double  averageFrameNanos = 0;
+    private int     slowFrames        = 0;
+    private int     onTimeFrames      = 0;
+    private int     upgradeFrames     = BASE_UPGRADE_FRAMES;
+    private long    lastChangeFrame   = 0;
+    private boolean lastChangeRaised  = false;
+
+    /**
+     * Constructs a QualityGovernor at {@link QualityLevel#HIGH}.
+     *
+     * @param frameRate
+     *         The repaint rate to hold; the frame budget is its inverse. The governor measures the time between drawn
+     *         frames, so this is the rate the screen repaints at, not the simulation rate.
+     */
+    QualityGovernor(double frameRate) {
+        this.budgetNanos = 1_000_000_000L / frameRate;
+    }
+
+    /**
+     * Records a drawn frame and adjusts the level.
+     *
+     * @param now
+     *         The time of the frame in nanoseconds, from {@link System#nanoTime()} or an AnimationTimer pulse.
+     */
+    void frame(long now) {
+        if (lastFrame < 0) {
+            lastFrame = now;
+            return;
+        }
+        long elapsed = now - lastFrame;
+        lastFrame = now;
+        frames++;
+        averageFrameNanos = frames == 1 ? elapsed : averageFrameNanos + (elapsed - averageFrameNanos) * SMOOTHING;
+        if (locked || frames < WARM_UP_FRAMES) {
+            return;
+        }
+
+        if (averageFrameNanos > budgetNanos * DOWNGRADE_RATIO) {
+            slowFrames++;
+            onTimeFrames = 0;
+        } else if (averageFrameNanos <= budgetNanos * UPGRADE_RATIO) {
+            onTimeFrames++;
+            slowFrames = 0;
+        } else {
+            slowFrames   = 0;
+            onTimeFrames = 0;
+        }
+
+        QualityLevel current = level.get();
+        if (slowFrames >= DOWNGRADE_FRAMES && current.lower() != current) {
+            // Lowering a level that was only just raised means it cannot hold the budget; wait longer before retrying
+            boolean failedUpgrade = lastChangeRaised && frames - lastChangeFrame < (long) upgradeFrames * 2;
+            upgradeFrames = failedUpgrade ? Math.min(MAX_UPGRADE_FRAMES, upgradeFrames * 2) : BASE_UPGRADE_FRAMES;
+            change(current.lower(), false);
+        } else if (onTimeFrames >= upgradeFrames && current.higher() != current) {
+            change(current.higher(), true);
+        }
+    }
+
+    /**
+     * Forgets the time of the last frame, so a pause in drawing is not taken for one long frame.
+     */
+    void pause() {
+        lastFrame = -1;
+    }
+
+    /**
+     * Pins the level until {@link #unlock()} is called.
+     *
+     * @param qualityLevel
+     *         The level to hold.
+     */
+    public void lock(QualityLevel qualityLevel) {
+        locked = true;
+        level.set(qualityLevel);
+    }
+
+    /**
+     * Lets the governor adjust the level again, starting from the current one.
+     */
+    public void unlock() {
+        locked       = false;
+        slowFrames   = 0;
+        onTimeFrames = 0;
+    }
+
+    public boolean isLocked() {
+        return locked;
+    }
+
+    public QualityLevel getLevel() {
+        return level.get();
+    }
+
+    public ReadOnlyObjectProperty<QualityLevel> levelProperty() {
+        return level.getReadOnlyProperty();
+    }
+
+    /**
+     * @return The moving average of the time between frames, in seconds.
+     */
+    public double getAverageFrameTime() {
+        return averageFrameNanos / 1_000_000_000.0;
+    }
+
+    private void change(QualityLevel qualityLevel, boolean raised) {
+        level.set(qualityLevel);
+        slowFrames       = 0;
+        onTimeFrames     = 0;
+        lastChangeFrame  = frames;
+        lastChangeRaised = raised;
+    }
+}
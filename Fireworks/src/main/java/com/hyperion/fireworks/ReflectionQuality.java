@@ -0,0 +1,35 @@
+package com.hyperion.fireworks;
+
+/**
+ * Selects how {@link FireworksUtil} draws the reflection below the fireworks.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public enum ReflectionQuality {
+    /**
+     * No reflection.
+     */
+    OFF(0),
+    /**
+     * The reflection is captured at half the resolution of the fireworks and scaled up.
+     */
+    HALF(0.5),
+    /**
+     * The reflection is captured at the full resolution of the fireworks.
+     */
+    FULL(1);
+
+    private final double scale;
+
+    ReflectionQuality(double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * @return The resolution of the reflection relative to the fireworks.
+     */
+    public double getScale() {
+        return scale;
+    }
+}
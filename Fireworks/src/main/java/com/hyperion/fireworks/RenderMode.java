@@ -0,0 +1,32 @@
+package com.hyperion.fireworks;
+
+/**
+ * Selects how {@link FireworksUtil} turns the simulation into pixels.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public enum RenderMode {
+    /**
+     * Sets the alpha and fill and fills an oval for every tail position and particle.
+     */
+    DIRECT,
+    /**
+     * Collects the frame's shapes, groups them by fill and quantized alpha, and fills each group of a solid color as one
+     * path. Groups of a proportional gradient share their fill and alpha but are filled oval by oval, so the gradient
+     * stays per particle. Issues fewer Canvas commands at the cost of sorting the shapes once per frame.
+     */
+    BATCHED,
+    /**
+     * Rasterizes each paint once into a sprite atlas and draws particles and tails as image blits, falling back to
+     * {@code fillOval} for paints that are not in the atlas yet. Tuned with {@code spriteCacheSize},
+     * {@code spriteIdleFrames} and {@code atlasRebuildInterval} on the {@link FireworksUtil.Builder}.
+     */
+    SPRITE_ATLAS,
+    /**
+     * Rasterizes in software into an off-heap pixel buffer with saturating additive blending and a soft glow, in bands
+     * spread over {@code rasterThreads} threads, and shows the result in an ImageView instead of the Canvas. Meant for
+     * machines without a GPU, where the Canvas pipeline falls back to slow software rendering.
+     */
+    PIXEL_BUFFER
+}
@@ -0,0 +1,62 @@
+package com.hyperion.fireworks;
+
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.firework_styles.FireworkType;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Primes a display before its show starts, on a background thread. The display's engine gets its firework pools filled,
+ * and a scratch engine built like it runs an off-screen show that launches every {@link FireworkType} over and over, so
+ * that palettes, particle stores and the hot paths of launching, exploding and moving are compiled by the time the first
+ * real firework goes up. The scratch engine is dropped afterwards.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+final class WarmUp {
+    private static final FireworkType[] TYPES           = FireworkType.values();
+    private static final int            LAUNCH_INTERVAL = 30; // Steps between two volleys of every type
+
+    private WarmUp() {
+    }
+
+    /**
+     * Starts warming up on a new daemon thread.
+     *
+     * @param engine
+     *         The engine of the display; it must not be stepped until the returned future is done.
+     * @param scratch
+     *         An engine configured like the display's, stepped off-screen and then dropped.
+     * @param steps
+     *         The number of steps the scratch engine runs.
+     *
+     * @return A future completed when the warm-up is done.
+     */
+    static CompletableFuture<Void> start(SimulationEngine engine, SimulationEngine scratch, int steps) {
+        return CompletableFuture.runAsync(() -> run(engine, scratch, steps), runnable -> {
+            Thread thread = new Thread(runnable, "fireworks-warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    private static void run(SimulationEngine engine, SimulationEngine scratch, int steps) {
+        try {
+            engine.prefillPools();
+            scratch.prefillPools();
+            for (int step = 0; step < steps; step++) {
+                if (step % LAUNCH_INTERVAL == 0) {
+                    for (FireworkType fireworkType : TYPES) {
+                        scratch.queueFirework(fireworkType);
+                    }
+                    scratch.launchFireworks(TYPES.length);
+                }
+                scratch.step();
+                scratch.publishSnapshot();
+            }
+        } finally {
+            scratch.shutdown();
+        }
+    }
+}
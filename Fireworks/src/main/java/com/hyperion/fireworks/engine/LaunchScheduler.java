@@ -0,0 +1,255 @@
+package com.hyperion.fireworks.engine;
+
+import com.hyperion.fireworks.firework_styles.FireworkType;
+import com.hyperion.fireworks.show.CompiledShow;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Launches fireworks on the simulation clock. Launch events wait in a priority queue ordered by their simulation time,
+ * and the engine advances the scheduler by one time step at the start of every step, so launches stay in step with the
+ * physics however fast the simulation runs, and pause when it pauses.
+ * <p>
+ * Four launch patterns are supported:
+ * <ul>
+ *     <li>The cadence: a recurring batch of random fireworks, {@code interval} seconds apart shortened by up to
+ *     {@code jitter} of the interval, plus the longest extra delay of the firework types in the batch
+ *     ({@link FireworkType#getExtraLaunchDelay()}). The batch size follows the engine's quality level. The cadence
+ *     reuses a single event, so it allocates nothing per launch.</li>
+ *     <li>Bursts: a number of launches in quick succession, see {@link #scheduleBurst}.</li>
+ *     <li>The finale: volleys that grow and come faster and faster, ending in one large volley, see
+ *     {@link #scheduleFinale}. The cadence holds off until the finale is over.</li>
+ *     <li>A scripted show: the cues of a {@link CompiledShow}, played from any point of the show, see
+ *     {@link #playShow}. Cues are read straight from the show file as they come due.</li>
+ * </ul>
+ * {@link #advance(double)} must be called from the stepping thread; bursts, finales and shows may be scheduled from any
+ * thread and are picked up at the next step.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class LaunchScheduler {
+    private static final int    FINALE_MAX_VOLLEY     = 4; // Fireworks in the last volley before the closing one
+    private static final int    FINALE_CLOSING_VOLLEY = 8; // Fireworks launched together to end the finale
+    private static final double FINALE_FIRST_SPACING  = 0.6; // Seconds between the first volleys of a finale
+    private static final double FINALE_LAST_SPACING   = 0.12; // Seconds between the last volleys of a finale
+
+    private final SimulationEngine             engine;
+    private final Random                       random;
+    private final PriorityQueue<LaunchEvent>   events      = new PriorityQueue<>();
+    private final Queue<LaunchEvent>           incoming    = new ConcurrentLinkedQueue<>(); // Times are relative until queued
+    private final LaunchEvent                  cadence     = new LaunchEvent(0, 0, null);
+    private final AtomicReference<ShowRequest> showRequest = new AtomicReference<>(); // Applied at the next step
+    private final double                       interval;
+    private final double                       jitter;
+    private final int                          maxBatchSize;
+
+    private double time             = 0; // Simulation time in seconds
+    private long   sequence         = 0; // Keeps events due at the same time in scheduling order
+    private double cadenceHeldUntil = 0; // The cadence launches nothing before this time
+
+    private CompiledShow show      = null;
+    private int          nextCue   = 0;
+    private double       showStart = 0; // Simulation time of the start of the show
+
+    /**
+     * Constructs a LaunchScheduler.
+     *
+     * @param engine
+     *         The engine to launch into.
+     * @param random
+     *         The random number generator for the jitter.
+     * @param interval
+     *         The seconds between cadence batches before jitter, 0 or less for no cadence.
+     * @param jitter
+     *         The largest fraction of the interval a gap between batches may be shortened by, from 0 to 1.
+     * @param maxBatchSize
+     *         The size of a cadence batch at full detail.
+     */
+    LaunchScheduler(SimulationEngine engine, Random random, double interval, double jitter, int maxBatchSize) {
+        this.engine       = engine;
+        this.random       = random;
+        this.interval     = interval;
+        this.jitter       = Math.max(0, Math.min(1, jitter));
+        this.maxBatchSize = maxBatchSize;
+        if (interval > 0) {
+            cadence.time = interval;
+            enqueue(cadence);
+        }
+    }
+
+    /**
+     * Launches a burst: {@code launches} fireworks one after another, {@code spacing} seconds apart. Safe to call from
+     * any thread.
+     *
+     * @param delay
+     *         The seconds from the next step until the first launch.
+     * @param launches
+     *         The number of fireworks.
+     * @param spacing
+     *         The seconds between two launches of the burst.
+     * @param fireworkType
+     *         The type of every firework of the burst, or null for random types.
+     */
+    public void scheduleBurst(double delay, int launches, double spacing, FireworkType fireworkType) {
+        for (int i = 0; i < launches; i++) {
+            incoming.offer(new LaunchEvent(delay + i * spacing, 1, fireworkType));
+        }
+    }
+
+    /**
+     * Launches a finale: volleys that grow from one to {@value #FINALE_MAX_VOLLEY} fireworks while the gaps between them
+     * shrink, closed by a volley of {@value #FINALE_CLOSING_VOLLEY} fireworks. The cadence launches nothing until the
+     * finale is over. Safe to call from any thread.
+     *
+     * @param delay
+     *         The seconds from the next step until the first volley.
+     * @param duration
+     *         The seconds from the first volley until the closing volley.
+     */
+    public void scheduleFinale(double delay, double duration) {
+        double at = 0;
+        while (at < duration) {
+            double progress = at / duration;
+            int    volley   = 1 + (int) (progress * FINALE_MAX_VOLLEY);
+            incoming.offer(new LaunchEvent(delay + at, Math.min(volley, FINALE_MAX_VOLLEY), null));
+            at += FINALE_FIRST_SPACING + (FINALE_LAST_SPACING - FINALE_FIRST_SPACING) * progress;
+        }
+        LaunchEvent closing = new LaunchEvent(delay + duration, FINALE_CLOSING_VOLLEY, null);
+        closing.holdsCadence = true;
+        incoming.offer(closing);
+    }
+
+    /**
+     * Plays a compiled show from the given point on, replacing the show playing so far; call it again to jump to another
+     * point. The cue at the seek position is found by binary search, so starting or jumping costs the same anywhere in
+     * the show. The cadence keeps running; build the engine without a launch interval for a purely scripted show. Safe to
+     * call from any thread.
+     *
+     * @param show
+     *         The show.
+     * @param from
+     *         The show time in seconds to start from; cues before it are skipped.
+     */
+    public void playShow(CompiledShow show, double from) {
+        showRequest.set(new ShowRequest(show, from));
+    }
+
+    /**
+     * Stops the show playing, if any. Safe to call from any thread.
+     */
+    public void stopShow() {
+        showRequest.set(new ShowRequest(null, 0));
+    }
+
+    /**
+     * @return The time in the show playing, in seconds, or NaN when no show is playing.
+     */
+    public double getShowTime() {
+        return show != null ? time - showStart : Double.NaN;
+    }
+
+    /**
+     * Advances the simulation clock and launches every event that has come due. Call it from the stepping thread.
+     *
+     * @param timeStep
+     *         The seconds to advance by.
+     */
+    void advance(double timeStep) {
+        ShowRequest request = showRequest.getAndSet(null);
+        if (request != null) {
+            show      = request.show();
+            nextCue   = show != null ? show.seek(request.from()) : 0;
+            showStart = time - request.from();
+        }
+
+        LaunchEvent scheduled;
+        while ((scheduled = incoming.poll()) != null) {
+            scheduled.time += time; // Relative to the step that picked the event up
+            if (scheduled.holdsCadence) {
+                cadenceHeldUntil = Math.max(cadenceHeldUntil, scheduled.time);
+            }
+            enqueue(scheduled);
+        }
+
+        time += timeStep;
+        while (!events.isEmpty() && events.peek().time <= time) {
+            LaunchEvent event = events.poll();
+            if (event == cadence) {
+                launchCadence();
+            } else if (event.fireworkType != null) {
+                for (int i = 0; i < event.count; i++) {
+                    engine.launch(event.fireworkType);
+                }
+            } else {
+                engine.launchFireworks(event.count);
+            }
+        }
+
+        if (show != null) {
+            double showTime = time - showStart;
+            while (nextCue < show.size() && show.getTime(nextCue) <= showTime) {
+                engine.launchCue(show, nextCue++);
+            }
+        }
+    }
+
+    /**
+     * @return The simulation time in seconds.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return The number of launch events waiting, the cadence included.
+     */
+    public int getPendingEventCount() {
+        return events.size() + incoming.size();
+    }
+
+    private void launchCadence() {
+        double extraDelay = 0;
+        if (cadence.time >= cadenceHeldUntil) {
+            extraDelay = engine.launchFireworks(engine.getQualityLevel().scaleBatchSize(maxBatchSize));
+        }
+        double gap = interval * (1 - jitter * random.nextDouble()) + extraDelay;
+        cadence.time = Math.max(cadence.time, cadenceHeldUntil) + gap;
+        enqueue(cadence);
+    }
+
+    private void enqueue(LaunchEvent event) {
+        event.sequence = sequence++;
+        events.offer(event);
+    }
+
+    private record ShowRequest(CompiledShow show, double from) {
+    }
+
+    /**
+     * A launch at a point in simulation time.
+     */
+    private static final class LaunchEvent implements Comparable<LaunchEvent> {
+        private final int          count;
+        private final FireworkType fireworkType; // Null for random types
+        private       double       time;
+        private       long         sequence;
+        private       boolean      holdsCadence = false; // True for the end of a finale
+
+        private LaunchEvent(double time, int count, FireworkType fireworkType) {
+            this.time         = time;
+            this.count        = count;
+            this.fireworkType = fireworkType;
+        }
+
+        @Override
+        public int compareTo(LaunchEvent other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.hyperion.fireworks.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A global ceiling on the number of particles alive at once. Fireworks reserve their burst when they are admitted at
+ * launch, take particles from the budget when an explosion needed more than was reserved, and give particles back as
+ * they die. Fireworks give particles back on the threads that move them, so the budget is thread-safe; particles are
+ * only taken on the stepping thread, in firework order, so who gets them does not depend on thread timing.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class ParticleBudget {
+    private final int           capacity;
+    private final AtomicInteger used = new AtomicInteger();
+
+    /**
+     * Constructs an empty ParticleBudget.
+     *
+     * @param capacity
+     *         The most particles that may be reserved or alive at once.
+     */
+    public ParticleBudget(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes up to {@code wanted} particles from the budget.
+     *
+     * @param wanted
+     *         The number of particles wanted.
+     * @param minimum
+     *         The fewest particles worth taking; if less is available nothing is taken.
+     *
+     * @return The number of particles taken, either 0 or between {@code minimum} and {@code wanted}.
+     */
+    public int tryAcquire(int wanted, int minimum) {
+        while (true) {
+            int current = used.get();
+            int granted = Math.min(wanted, capacity - current);
+            if (granted <= 0 || granted < minimum) {
+                return 0;
+            }
+            if (used.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Takes as many of {@code wanted} particles as are available.
+     *
+     * @return The number of particles taken.
+     */
+    public int tryAcquire(int wanted) {
+        return tryAcquire(wanted, 1);
+    }
+
+    /**
+     * Gives particles back to the budget.
+     */
+    public void release(int particles) {
+        if (particles > 0) {
+            used.addAndGet(-particles);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of particles reserved or alive.
+     */
+    public int getUsed() {
+        return used.get();
+    }
+
+    public int getAvailable() {
+        return Math.max(0, capacity - used.get());
+    }
+}
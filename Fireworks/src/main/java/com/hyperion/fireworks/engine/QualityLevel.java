@@ -0,0 +1,81 @@
+package com.hyperion.fireworks.engine;
+
+/**
+ * The detail levels the simulation can run at, from the cheapest to the full show. A level scales the number of
+ * particles in an explosion, the length of rocket tails and the number of fireworks launched per batch, and says
+ * whether the costly display effects (additive blending and the reflection) are on.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public enum QualityLevel {
+    MINIMAL(0.25, 0.3, 0.34, false),
+    LOW(0.5, 0.5, 0.5, false),
+    MEDIUM(0.75, 0.75, 0.75, true),
+    HIGH(1.0, 1.0, 1.0, true);
+
+    private final double  particleScale;
+    private final double  tailScale;
+    private final double  batchScale;
+    private final boolean effectsEnabled;
+
+    QualityLevel(double particleScale, double tailScale, double batchScale, boolean effectsEnabled) {
+        this.particleScale  = particleScale;
+        this.tailScale      = tailScale;
+        this.batchScale     = batchScale;
+        this.effectsEnabled = effectsEnabled;
+    }
+
+    /**
+     * @return The fraction of a style's explosion particles that are spawned.
+     */
+    public double getParticleScale() {
+        return particleScale;
+    }
+
+    /**
+     * @return The fraction of a firework type's tail positions drawn behind a rocket.
+     */
+    public double getTailScale() {
+        return tailScale;
+    }
+
+    /**
+     * @return The fraction of the configured batch size launched at once.
+     */
+    public double getBatchScale() {
+        return batchScale;
+    }
+
+    public boolean isEffectsEnabled() {
+        return effectsEnabled;
+    }
+
+    /**
+     * Scales a batch size by this level, never below one firework.
+     */
+    public int scaleBatchSize(int batchSize) {
+        return Math.max(1, (int) Math.round(batchSize * batchScale));
+    }
+
+    /**
+     * Scales a firework type's tail length by this level, never below one position.
+     */
+    public int scaleTailLength(int tailLength) {
+        return Math.max(1, (int) Math.round(tailLength * tailScale));
+    }
+
+    /**
+     * @return The next cheaper level, or this level if it is the cheapest.
+     */
+    public QualityLevel lower() {
+        return ordinal() == 0 ? this : values()[ordinal() - 1];
+    }
+
+    /**
+     * @return The next richer level, or this level if it is the richest.
+     */
+    public QualityLevel higher() {
+        return ordinal() == values().length - 1 ? this : values()[ordinal() + 1];
+    }
+}
@@ -0,0 +1,110 @@
+package com.hyperion.fireworks.engine;
+
+import com.hyperion.fireworks.firework_styles.Firework;
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import javafx.scene.paint.Paint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A copy of everything a renderer needs from one simulation step. The engine keeps two snapshots and swaps them after
+ * every published step: the physics side writes the back snapshot while the render side draws the front one, so drawing
+ * never reads state that the physics step is changing.
+ * <p>
+ * Snapshot entries, trails and particle stores are reused from publish to publish, so once the buffers have grown to the
+ * size of the show, publishing no longer allocates.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class RenderSnapshot {
+    private final List<Entry> entries = new ArrayList<>();
+    private       int         count   = 0;
+    private       double      width;
+    private       double      height;
+    private       long        frame   = -1;
+
+    /**
+     * Copies the drawable state of the fireworks into this snapshot.
+     */
+    void capture(List<Firework> fireworks, Viewport viewport, long frame) {
+        this.width  = viewport.getWidth();
+        this.height = viewport.getHeight();
+        this.frame  = frame;
+        while (entries.size() < fireworks.size()) {
+            entries.add(new Entry());
+        }
+        for (int i = 0; i < fireworks.size(); i++) {
+            entries.get(i).capture(fireworks.get(i));
+        }
+        count = fireworks.size();
+    }
+
+    /**
+     * Draws this snapshot.
+     *
+     * @param renderer
+     *         The renderer to draw with.
+     * @param interpolation
+     *         0 draws the step before the snapshot, 1 draws the snapshot's step.
+     */
+    public void render(FireworkRenderer renderer, double interpolation) {
+        renderer.beginFrame(width, height);
+        for (int i = 0; i < count; i++) {
+            entries.get(i).render(renderer, interpolation);
+        }
+        renderer.endFrame();
+    }
+
+    /**
+     * @return The simulation frame this snapshot was taken at, or -1 if nothing has been published yet.
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    public int getFireworkCount() {
+        return count;
+    }
+
+    private static final class Entry {
+        private final Trail         trail     = new Trail(Trail.MAX_LENGTH);
+        private final ParticleStore particles = new ParticleStore();
+        private       boolean       exploded;
+        private       double        x;
+        private       double        y;
+        private       double        velocityX;
+        private       double        velocityY;
+        private       double        size;
+        private       double        timeStep;
+        private       Paint         color;
+
+        void capture(Firework firework) {
+            exploded = firework.hasExploded();
+            if (exploded) {
+                particles.copyFrom(firework.getParticles());
+            } else {
+                x         = firework.getX();
+                y         = firework.getY();
+                velocityX = firework.getVelocityX();
+                velocityY = firework.getVelocityY();
+                size      = firework.getSize();
+                timeStep  = firework.getTimeStep();
+                color     = firework.getColor();
+                trail.copyFrom(firework.getTrail());
+            }
+        }
+
+        void render(FireworkRenderer renderer, double interpolation) {
+            if (!exploded) {
+                double rewind = (1 - interpolation) * timeStep;
+                renderer.drawRocket(x - velocityX * rewind, y - velocityY * rewind, size, color, trail);
+            } else {
+                renderer.drawParticles(particles, interpolation);
+            }
+        }
+    }
+}
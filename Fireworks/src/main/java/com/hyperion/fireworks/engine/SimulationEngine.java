@@ -0,0 +1,784 @@
+package com.hyperion.fireworks.engine;
+
+import com.hyperion.fireworks.firework_styles.*;
+import com.hyperion.fireworks.particle.BurstGenerator;
+import com.hyperion.fireworks.particle.PaintPalette;
+import com.hyperion.fireworks.pool.ObjectPool;
+import com.hyperion.fireworks.pool.PoolStatistics;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import com.hyperion.fireworks.show.CompiledShow;
+import javafx.geometry.Point2D;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * SimulationEngine owns the live fireworks, the launch queue and the physics step of a fireworks display. It works only
+ * on a logical {@link Viewport} and draws through a pluggable {@link FireworkRenderer}, so it needs no Canvas and no
+ * running FX toolkit: it can be stepped at any rate from any single thread, including a plain JVM thread on a headless
+ * machine.
+ * <p>
+ * Each call to {@link #step()} advances the simulation by one fixed time step. {@link #step()}, {@link #render} and
+ * {@link #publishSnapshot()} must be called from one thread at a time; launching and queueing are thread-safe and take
+ * effect at the start of the next step. With a parallelism above 1 the fireworks are moved on a ForkJoin pool, and a
+ * render thread can draw the last published {@link RenderSnapshot} while the next step runs.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class SimulationEngine {
+    private static final int    MOVE_CHUNK_SIZE       = 2; // Fireworks moved per ForkJoin leaf task
+    private static final double MIN_BURST_FRACTION    = 0.4; // Smallest share of its burst a firework is launched with
+    private static final int    MAX_DEFERRED_LAUNCHES = 64; // Launches waiting for budget beyond this are dropped
+    private static final int    TIMING_WHEEL_SLOTS    = 256; // Effects up to about 4 seconds ahead at 60 steps per second are found in one turn
+
+    private final List<Firework>      fireworks        = new ArrayList<>();
+    private final Queue<FireworkType> fireworkQueue    = new ConcurrentLinkedQueue<>();
+    private final Queue<FireworkType> pendingLaunches  = new ConcurrentLinkedQueue<>();
+    private final Deque<FireworkType> deferredLaunches = new ArrayDeque<>(); // Touched by the stepping thread only
+    private final Random              random; // Picks the types of random launches; launches may come from any thread
+
+    private final Map<FireworkType, ObjectPool<Firework>> fireworkPools = new EnumMap<>(FireworkType.class);
+    private final Map<FireworkType, Integer>              tailLengths = new EnumMap<>(FireworkType.class);
+    private final FireworkSpecRegistry                    specs;
+
+    private final Viewport         viewport;
+    private final double           timeStep;
+    private final Point2D          startPos;
+    private final Supplier<Double> launchAngleSupplier;
+    private final Supplier<Double> minLaunchHeightSupplier;
+
+    private final int              parallelism;
+    private final ParticleBudget   particleBudget; // Null when particles are not budgeted
+    private final PaintPalette     palette;
+    private final BurstGenerator   burstGenerator;
+    private final SplittableRandom fireworkRandoms; // Splits off the random stream of every launched firework
+    private final LaunchScheduler  launchScheduler;
+    private final AtomicLong       launchCount = new AtomicLong();
+    private final TimingWheel      timingWheel = new TimingWheel(TIMING_WHEEL_SLOTS); // Deferred effects of the fireworks
+
+    private ForkJoinPool physicsPool = null; // Started by the first parallel step, null when stepping on the calling thread
+
+    private          RenderSnapshot backSnapshot  = new RenderSnapshot();
+    private volatile RenderSnapshot frontSnapshot = new RenderSnapshot();
+
+    private volatile QualityLevel qualityLevel = QualityLevel.HIGH;
+
+    private volatile long downgradedLaunches = 0;
+    private volatile long droppedLaunches    = 0;
+
+    // Written by the stepping thread after every step; other threads may read a mix of two steps
+    private final int[] liveFireworksByType = new int[FireworkType.values().length];
+    private final int[] liveParticlesByType = new int[FireworkType.values().length];
+
+    private volatile long frameCount        = 0;
+    private volatile int  liveFireworkCount = 0;
+    private volatile int  liveParticleCount = 0;
+
+    private volatile long culledParticles        = 0;
+    private volatile int  offscreenParticleCount = 0;
+
+    /**
+     * Creates the engine and its firework pools.
+     *
+     * @param builder
+     *         The SimulationEngine Builder
+     */
+    public SimulationEngine(Builder builder) {
+        viewport                = builder.viewport;
+        timeStep                = 1 / builder.frameRate;
+        startPos                = builder.startPos;
+        launchAngleSupplier     = builder.launchAngleSupplier;
+        minLaunchHeightSupplier = builder.minLaunchHeightSupplier;
+        parallelism             = Math.max(1, builder.parallelism);
+        particleBudget          = builder.particleBudget > 0 ? new ParticleBudget(builder.particleBudget) : null;
+        random                  = builder.seed != null ? new Random(builder.seed) : new Random();
+        specs                   = new FireworkSpecRegistry(builder.fireworkSpecs);
+        palette                 = new PaintPalette(builder.paletteSize, builder.paletteRefreshInterval, paletteRetireSteps(specs),
+                                                   builder.seed != null ? new Random(builder.seed) : new Random());
+        burstGenerator          = new BurstGenerator(builder.burstAngleSteps);
+        fireworkRandoms         = builder.seed != null ? new SplittableRandom(builder.seed) : new SplittableRandom();
+
+        for (FireworkType fireworkType : FireworkType.values()) {
+            tailLengths.put(fireworkType, builder.tailLengths.getOrDefault(fireworkType, specs.get(fireworkType).getTailLength()));
+        }
+
+        createFireworkPools(builder.poolCapacity);
+        launchScheduler = new LaunchScheduler(this, random, builder.launchInterval, builder.launchJitter, builder.maxBatchSize);
+    }
+
+    /**
+     * Works out how long a retired palette slot has to wait before it gets a new paint: as long as the slowest particles
+     * of any spec, and the particles they spawn, may still refer to it. Rockets keep their paint itself rather than an
+     * index, so their flight does not count.
+     */
+    private static int paletteRetireSteps(FireworkSpecRegistry specs) {
+        int retireSteps = 0;
+        for (FireworkType fireworkType : FireworkType.values()) {
+            retireSteps = Math.max(retireSteps, specs.get(fireworkType).getParticleLifetime());
+        }
+        return retireSteps;
+    }
+
+    private void createFireworkPools(int poolCapacity) {
+        for (FireworkType fireworkType : FireworkType.values()) {
+            fireworkPools.put(fireworkType, new ObjectPool<>(poolCapacity,
+                                                             () -> {
+                                                                 Firework firework = createFirework(fireworkType);
+                                                                 firework.setPalette(palette);
+                                                                 firework.setBurstGenerator(burstGenerator);
+                                                                 firework.setTimingWheel(timingWheel);
+                                                                 firework.setTailLength(tailLengths.get(fireworkType));
+                                                                 relaunch(firework);
+                                                                 return firework;
+                                                             },
+                                                             this::relaunch));
+        }
+    }
+
+    /**
+     * Gives the firework a fresh random stream split off the engine's and resets it to a rocket on the launch pad.
+     * Fireworks are acquired on the stepping thread in launch order, so with a seed every run splits the same streams.
+     */
+    private void relaunch(Firework firework) {
+        firework.setRandom(fireworkRandoms.split());
+        firework.reset(startPos, launchAngleSupplier, minLaunchHeightSupplier);
+    }
+
+    /**
+     * Fills every firework pool up to its capacity, so that the first launches recycle fireworks instead of building them
+     * mid-show. Call it before the engine is stepped, from the thread that will step it or with a happens-before edge to
+     * that thread. The prefilled fireworks take random streams, so a seeded run repeats itself only if every run prefills.
+     */
+    public void prefillPools() {
+        for (ObjectPool<Firework> pool : fireworkPools.values()) {
+            pool.prefill();
+        }
+    }
+
+    /**
+     * Launches a batch of fireworks, taking queued fireworks first and filling the rest of the batch with random ones.
+     * The fireworks take off at the start of the next step. Safe to call from any thread.
+     *
+     * @param n
+     *         The size of the batch.
+     *
+     * @return The largest extra delay, in seconds, requested by a firework type in the batch; callers that schedule
+     * launches should wait this much longer before the next batch.
+     */
+    public double launchFireworks(int n) {
+        double maxExtraDelay = 0.0;
+        for (int i = 0; i < n; i++) {
+            FireworkType fireworkType = Optional.ofNullable(fireworkQueue.poll()).orElseGet(this::randomFireworkType);
+            maxExtraDelay = Math.max(maxExtraDelay, specs.get(fireworkType).getExtraLaunchDelay());
+            launch(fireworkType);
+        }
+        return maxExtraDelay;
+    }
+
+    /**
+     * Launches a firework of the given type at the start of the next step. Safe to call from any thread.
+     */
+    void launch(FireworkType fireworkType) {
+        pendingLaunches.offer(fireworkType);
+        launchCount.incrementAndGet();
+    }
+
+    /**
+     * Launches a cue of a compiled show right away, from the cue's position and with the cue's angle and seed. A cue
+     * that does not fit the particle budget is dropped rather than deferred, since it would go off late. Call it from
+     * the stepping thread.
+     */
+    void launchCue(CompiledShow show, int cue) {
+        launchCount.incrementAndGet();
+        if (!admit(show.getType(cue), show, cue)) {
+            droppedLaunches++;
+        }
+    }
+
+    /**
+     * Queues a firework of the given type; queued fireworks are launched before random ones. Safe to call from any
+     * thread.
+     *
+     * @param fireworkType
+     *         The type of firework to queue.
+     */
+    public void queueFirework(FireworkType fireworkType) {
+        fireworkQueue.offer(fireworkType);
+    }
+
+    /**
+     * Advances the simulation by one time step and recycles the fireworks that have died.
+     */
+    public void step() {
+        launchScheduler.advance(timeStep);
+
+        // Launches that are waiting for budget go first, so a later launch cannot overtake them
+        while (!deferredLaunches.isEmpty() && admit(deferredLaunches.peekFirst())) {
+            deferredLaunches.pollFirst();
+        }
+        FireworkType launch;
+        while ((launch = pendingLaunches.poll()) != null) {
+            if (!deferredLaunches.isEmpty() || !admit(launch)) {
+                defer(launch);
+            }
+        }
+        palette.advance();
+        timingWheel.advance();
+        settleParticleBudgets(); // Bursts of deferred effects, before the move compacts the stores
+
+        if (parallelism > 1 && fireworks.size() > MOVE_CHUNK_SIZE) {
+            if (physicsPool == null) {
+                physicsPool = new ForkJoinPool(parallelism);
+            }
+            physicsPool.invoke(new MoveTask(0, fireworks.size()));
+        } else {
+            for (int i = 0; i < fireworks.size(); i++) {
+                fireworks.get(i).move();
+            }
+        }
+        settleParticleBudgets();
+
+        // Remove fireworks that have moved off the screen or reached their target distance and recycle them
+        int  particleCount  = 0;
+        int  offscreenCount = 0;
+        long culled         = 0;
+        Arrays.fill(liveFireworksByType, 0);
+        Arrays.fill(liveParticlesByType, 0);
+        for (int i = fireworks.size() - 1; i >= 0; i--) {
+            Firework firework = fireworks.get(i);
+            culled += firework.getCulledParticleCount();
+            if (firework.isDead()) {
+                fireworks.remove(i);
+                firework.cancelDeferredEffects(); // Nothing may fire into a pooled firework
+                firework.releaseParticleBudget();
+                fireworkPools.get(firework.getType()).release(firework);
+            } else {
+                particleCount += firework.getParticles().size();
+                offscreenCount += firework.getParticles().getOffscreenCount();
+                liveFireworksByType[firework.getType().ordinal()]++;
+                liveParticlesByType[firework.getType().ordinal()] += firework.getParticles().size();
+            }
+        }
+        liveFireworkCount      = fireworks.size();
+        liveParticleCount      = particleCount;
+        offscreenParticleCount = offscreenCount;
+        culledParticles += culled;
+        frameCount++;
+    }
+
+    /**
+     * Takes the particles the fireworks spawned past their reservations from the budget, in list order, so the fireworks
+     * that go short under contention are the same whatever threads moved them.
+     */
+    private void settleParticleBudgets() {
+        if (particleBudget == null) {
+            return;
+        }
+        for (int i = 0; i < fireworks.size(); i++) {
+            fireworks.get(i).settleParticleBudget();
+        }
+    }
+
+    /**
+     * Launches a firework if the particle budget can take its burst. When only part of the burst fits, but at least
+     * {@link #MIN_BURST_FRACTION} of it, the firework is launched with a proportionally smaller burst.
+     *
+     * @return false if the launch has to wait for particles to die.
+     */
+    private boolean admit(FireworkType fireworkType) {
+        return admit(fireworkType, null, 0);
+    }
+
+    /**
+     * Admits a launch, aiming the firework as the given show cue says when the show is not null.
+     */
+    private boolean admit(FireworkType fireworkType, CompiledShow show, int cue) {
+        QualityLevel level    = qualityLevel;
+        int          reserved = 0;
+        double       fraction = 1.0;
+        if (particleBudget != null) {
+            int burst = (int) Math.ceil(specs.get(fireworkType).getBurstSize() * level.getParticleScale());
+            reserved = particleBudget.tryAcquire(burst, (int) Math.ceil(burst * MIN_BURST_FRACTION));
+            if (reserved == 0) {
+                return false;
+            }
+            if (reserved < burst) {
+                fraction = (double) reserved / burst;
+                downgradedLaunches++;
+            }
+        }
+        Firework firework = fireworkPools.get(fireworkType).acquire();
+        if (show != null) {
+            aim(firework, show, cue);
+        }
+        firework.applyQuality(level);
+        if (particleBudget != null) {
+            firework.admit(particleBudget, reserved, fraction);
+        }
+        fireworks.add(firework);
+        return true;
+    }
+
+    private void aim(Firework firework, CompiledShow show, int cue) {
+        double angle = Math.toRadians(show.getAngle(cue)); // Cue sheets give degrees, fireworks fly by radians
+        firework.setRandom(new SplittableRandom(show.getSeed(cue)));
+        firework.reset(new Point2D(show.getX(cue) * viewport.getWidth(), show.getY(cue) * viewport.getHeight()),
+                       Double.isNaN(angle) ? null : () -> angle, minLaunchHeightSupplier);
+    }
+
+    private void defer(FireworkType fireworkType) {
+        if (deferredLaunches.size() < MAX_DEFERRED_LAUNCHES) {
+            deferredLaunches.addLast(fireworkType);
+        } else {
+            droppedLaunches++;
+        }
+    }
+
+    /**
+     * Copies the current state into the back snapshot and makes it the one returned by {@link #getSnapshot()}. Call it
+     * from the stepping thread after {@link #step()}.
+     */
+    public void publishSnapshot() {
+        RenderSnapshot snapshot = backSnapshot;
+        snapshot.capture(fireworks, viewport, frameCount);
+        backSnapshot  = frontSnapshot;
+        frontSnapshot = snapshot;
+    }
+
+    /**
+     * @return The last snapshot published by {@link #publishSnapshot()}. It stays valid until the second publish after
+     * it, so a render thread should start the next publish only after it has finished drawing.
+     */
+    public RenderSnapshot getSnapshot() {
+        return frontSnapshot;
+    }
+
+    /**
+     * Draws the current state of the simulation.
+     *
+     * @param renderer
+     *         The renderer to draw with.
+     */
+    public void render(FireworkRenderer renderer) {
+        render(renderer, 1.0);
+    }
+
+    /**
+     * Draws the simulation between the previous and the current step, for loops that render more often than they step.
+     *
+     * @param renderer
+     *         The renderer to draw with.
+     * @param interpolation
+     *         0 draws the previous step, 1 draws the current step.
+     */
+    public void render(FireworkRenderer renderer, double interpolation) {
+        renderer.beginFrame(viewport.getWidth(), viewport.getHeight());
+        for (int i = 0; i < fireworks.size(); i++) {
+            fireworks.get(i).draw(renderer, interpolation);
+        }
+        renderer.endFrame();
+    }
+
+    private FireworkType randomFireworkType() {
+        return specs.pick(random);
+    }
+
+    private Firework createFirework(FireworkType fireworkType) {
+        SpecFirework firework = new SpecFirework(fireworkType, startPos, viewport, launchAngleSupplier, timeStep, minLaunchHeightSupplier);
+        firework.setSpec(specs.get(fireworkType));
+        return firework;
+    }
+
+    /**
+     * Sets the detail level of the fireworks launched from the next step on; fireworks already in flight keep theirs.
+     * Safe to call from any thread.
+     *
+     * @param qualityLevel
+     *         The detail level.
+     */
+    public void setQualityLevel(QualityLevel qualityLevel) {
+        this.qualityLevel = qualityLevel;
+    }
+
+    public QualityLevel getQualityLevel() {
+        return qualityLevel;
+    }
+
+    /**
+     * @return The scheduler launching fireworks on this engine's simulation clock.
+     */
+    public LaunchScheduler getLaunchScheduler() {
+        return launchScheduler;
+    }
+
+    /**
+     * @return The number of deferred firework effects waiting to fire.
+     */
+    public int getPendingEffectCount() {
+        return timingWheel.getPendingCount();
+    }
+
+    /**
+     * @return The number of fireworks launched since the engine was created, including launches still waiting for the
+     * next step or for particle budget.
+     */
+    public long getLaunchCount() {
+        return launchCount.get();
+    }
+
+    /**
+     * @return The specs this engine plays for each firework type.
+     */
+    public FireworkSpecRegistry getSpecs() {
+        return specs;
+    }
+
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * @return The simulated seconds per {@link #step()}.
+     */
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * @return The number of steps taken since the engine was created.
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return The number of live fireworks after the last step.
+     */
+    public int getLiveFireworkCount() {
+        return liveFireworkCount;
+    }
+
+    /**
+     * @return The number of live particles after the last step.
+     */
+    public int getLiveParticleCount() {
+        return liveParticleCount;
+    }
+
+    /**
+     * @return The number of live fireworks of the given type after the last step.
+     */
+    public int getLiveFireworkCount(FireworkType fireworkType) {
+        return liveFireworksByType[fireworkType.ordinal()];
+    }
+
+    /**
+     * @return The number of particles retired since the engine was created because they left the viewport for good.
+     */
+    public long getCulledParticles() {
+        return culledParticles;
+    }
+
+    /**
+     * @return The number of live particles outside the viewport after the last step; they are simulated but not drawn.
+     */
+    public int getOffscreenParticleCount() {
+        return offscreenParticleCount;
+    }
+
+    /**
+     * @return The number of live particles of fireworks of the given type after the last step.
+     */
+    public int getLiveParticleCount(FireworkType fireworkType) {
+        return liveParticlesByType[fireworkType.ordinal()];
+    }
+
+    /**
+     * @return The global particle budget, or null if particles are not budgeted.
+     */
+    public ParticleBudget getParticleBudget() {
+        return particleBudget;
+    }
+
+    /**
+     * @return The paints shared by the fireworks of this engine.
+     */
+    public PaintPalette getPalette() {
+        return palette;
+    }
+
+    /**
+     * @return The number of launches waiting for the particle budget; only meaningful on the stepping thread.
+     */
+    public int getDeferredLaunchCount() {
+        return deferredLaunches.size();
+    }
+
+    /**
+     * @return The number of fireworks launched with a smaller burst because the particle budget was short.
+     */
+    public long getDowngradedLaunches() {
+        return downgradedLaunches;
+    }
+
+    /**
+     * @return The number of launches dropped because too many were already waiting for the particle budget.
+     */
+    public long getDroppedLaunches() {
+        return droppedLaunches;
+    }
+
+    /**
+     * @return The number of threads moving fireworks, 1 when the engine steps on the calling thread only.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Stops the threads that move fireworks in parallel. An engine that is stepped again starts new ones. Call it from the
+     * stepping thread, or once no thread steps the engine any more.
+     */
+    public void shutdown() {
+        if (physicsPool != null) {
+            physicsPool.shutdown();
+            physicsPool = null;
+        }
+    }
+
+    /**
+     * Returns the recycling counters of the pool for the given firework type.
+     *
+     * @param fireworkType
+     *         The firework type.
+     *
+     * @return A snapshot of the pool's hit, miss and high-water counters.
+     */
+    public PoolStatistics getPoolStatistics(FireworkType fireworkType) {
+        return fireworkPools.get(fireworkType).getStatistics();
+    }
+
+    /**
+     * Moves a range of the firework list, splitting it in half until the range is small enough to move directly. Each
+     * firework only touches its own state, so ranges can be moved in any order on any thread.
+     */
+    private final class MoveTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        MoveTask(int from, int to) {
+            this.from = from;
+            this.to   = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MOVE_CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    fireworks.get(i).move();
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MoveTask(from, middle), new MoveTask(middle, to));
+            }
+        }
+    }
+
+    // Builder inner class
+    @SuppressWarnings({"unused", "UnusedReturnValue"})
+    public static class Builder {
+        private double           width                   = 800; // default width
+        private double           height                  = 600; // default height
+        private double           frameRate               = 60;
+        private int              poolCapacity            = 16; // idle fireworks kept per type
+        private int              parallelism             = 1; // threads moving fireworks, 1 steps on the calling thread
+        private int              particleBudget          = 0; // most live particles, 0 for no limit
+        private int              paletteSize             = 128; // paints handed out at any time
+        private int              paletteRefreshInterval  = 30; // steps between two paint replacements, 0 for a fixed palette
+        private int              burstAngleSteps         = BurstGenerator.DEFAULT_ANGLE_STEPS; // directions explosion particles fly in
+        private Long             seed                    = null; // null seeds every run differently
+        private double           cullMargin              = 32; // pixels outside the viewport before particles are culled
+        private double           launchInterval          = 0; // seconds between automatic launch batches, 0 for none
+        private double           launchJitter            = 0.5; // largest fraction of the interval a gap is shortened by
+        private int              maxBatchSize            = 3; // fireworks per automatic batch at full detail
+        private final Map<FireworkType, Integer>      tailLengths   = new EnumMap<>(FireworkType.class); // overrides of the spec defaults
+        private final Map<FireworkType, FireworkSpec> fireworkSpecs = new EnumMap<>(FireworkType.class); // overrides of the type defaults
+        private Supplier<Double> launchAngleSupplier     = null; // null lets every firework pick 60 to 120 degrees itself
+        private Supplier<Double> minLaunchHeightSupplier = null;
+        private Point2D          startPos                = null;
+        private Viewport         viewport                = null;
+
+        public Builder width(double width) {
+            this.width = width;
+            return this;
+        }
+
+        public Builder height(double height) {
+            this.height = height;
+            return this;
+        }
+
+        public Builder frameRate(double frameRate) {
+            this.frameRate = frameRate;
+            return this;
+        }
+
+        public Builder poolCapacity(int poolCapacity) {
+            this.poolCapacity = poolCapacity;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the most particles that may be alive at once. Launches that would exceed it are shrunk or deferred and
+         * explosions get fewer particles; 0 disables the limit.
+         */
+        public Builder particleBudget(int particleBudget) {
+            this.particleBudget = particleBudget;
+            return this;
+        }
+
+        /**
+         * Sets the number of pre-generated paints fireworks pick their colors from.
+         */
+        public Builder paletteSize(int paletteSize) {
+            this.paletteSize = paletteSize;
+            return this;
+        }
+
+        /**
+         * Sets how many steps apart the palette replaces one of its paints with a new one; 0 keeps the palette fixed.
+         */
+        public Builder paletteRefreshInterval(int paletteRefreshInterval) {
+            this.paletteRefreshInterval = paletteRefreshInterval;
+            return this;
+        }
+
+        /**
+         * Sets the angular resolution of explosions: the number of evenly spaced directions particles can fly in.
+         */
+        public Builder burstAngleSteps(int burstAngleSteps) {
+            this.burstAngleSteps = burstAngleSteps;
+            return this;
+        }
+
+        /**
+         * Seeds the engine, so the same launches produce the same fireworks and explosions on every run; null picks a
+         * different seed every run.
+         */
+        public Builder seed(Long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets how far outside the viewport, in pixels, particles stay drawn before they are hidden or retired. Applied
+         * to the viewport, including one shared through {@link #viewport(Viewport)}.
+         */
+        public Builder cullMargin(double cullMargin) {
+            this.cullMargin = cullMargin;
+            return this;
+        }
+
+        /**
+         * Sets the seconds between the batches of random fireworks the engine launches on its own; 0 launches nothing
+         * unless asked to.
+         */
+        public Builder launchInterval(double launchInterval) {
+            this.launchInterval = launchInterval;
+            return this;
+        }
+
+        /**
+         * Sets how irregular the automatic launches are: the largest fraction of the interval, from 0 to 1, a gap
+         * between two batches may be shortened by.
+         */
+        public Builder launchJitter(double launchJitter) {
+            this.launchJitter = launchJitter;
+            return this;
+        }
+
+        /**
+         * Sets the size of an automatic launch batch at full detail; lower quality levels launch smaller batches.
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of tail positions drawn behind rockets of the given type at full detail, at most
+         * {@link Trail#MAX_LENGTH}. Lower quality levels shorten it proportionally.
+         */
+        public Builder tailLength(FireworkType fireworkType, int tailLength) {
+            tailLengths.put(fireworkType, tailLength);
+            return this;
+        }
+
+        /**
+         * Sets the tail lengths of several firework types at once; types that are not in the map keep theirs.
+         */
+        public Builder tailLengths(Map<FireworkType, Integer> tailLengths) {
+            this.tailLengths.putAll(tailLengths);
+            return this;
+        }
+
+        /**
+         * Plays the given spec for fireworks of the given type instead of the type's default spec: a different explosion,
+         * launch delay, random launch weight or tail length.
+         */
+        public Builder fireworkSpec(FireworkType fireworkType, FireworkSpec fireworkSpec) {
+            fireworkSpecs.put(fireworkType, fireworkSpec);
+            return this;
+        }
+
+        /**
+         * Sets the specs of several firework types at once; types that are not in the map keep theirs.
+         */
+        public Builder fireworkSpecs(Map<FireworkType, FireworkSpec> fireworkSpecs) {
+            this.fireworkSpecs.putAll(fireworkSpecs);
+            return this;
+        }
+
+        public Builder startPos(Point2D startPos) {
+            this.startPos = startPos;
+            return this;
+        }
+
+        public Builder launchAngleSupplier(Supplier<Double> launchAngleSupplier) {
+            this.launchAngleSupplier = launchAngleSupplier;
+            return this;
+        }
+
+        public Builder minLaunchHeightSupplier(Supplier<Double> minLaunchHeightSupplier) {
+            this.minLaunchHeightSupplier = minLaunchHeightSupplier;
+            return this;
+        }
+
+        /**
+         * Shares an existing viewport with the engine instead of creating one from {@link #width} and {@link #height}.
+         */
+        public Builder viewport(Viewport viewport) {
+            this.viewport = viewport;
+            return this;
+        }
+
+        // build method
+        public SimulationEngine build() {
+            viewport                = Optional.ofNullable(viewport).orElse(new Viewport(width, height));
+            viewport.setCullMargin(cullMargin);
+            startPos                = Optional.ofNullable(startPos).orElse(new Point2D(viewport.getWidth() / 2, viewport.getHeight()));
+            minLaunchHeightSupplier = Optional.ofNullable(minLaunchHeightSupplier).orElse(() -> (viewport.getHeight() / (Firework.SCALE * 1.5)) / 2.0);
+            return new SimulationEngine(this);
+        }
+    }
+}
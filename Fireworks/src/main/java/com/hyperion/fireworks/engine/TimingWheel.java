@@ -0,0 +1,201 @@
+package com.hyperion.fireworks.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A hashed timing wheel of deferred effects keyed on the simulation frame counter: second bursts, delayed crackle, color
+ * changes and the like. An effect due on frame {@code f} waits in slot {@code f % slots}, so scheduling and cancelling
+ * are O(1) and advancing by a frame only visits the effects of one slot, however many effects are waiting. Effects due
+ * more than a full turn ahead stay in their slot and are skipped until their frame comes round.
+ * <p>
+ * Because the wheel turns with the simulation rather than the wall clock, effects stay in lockstep with the physics and a
+ * replayed show fires them on the same frames.
+ * <p>
+ * {@link #schedule} may be called from any thread, including the threads moving fireworks in parallel: a slot is a
+ * lock-free stack. {@link #advance()} must be called from the stepping thread, which is also the thread effects fire on.
+ * Effects due on the same frame fire in no particular order.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class TimingWheel {
+    private final AtomicReferenceArray<Timer> slots;
+    private final int                         mask;
+    private final AtomicInteger               pending = new AtomicInteger();
+
+    private volatile long frame = 0;
+
+    /**
+     * Constructs a TimingWheel.
+     *
+     * @param slots
+     *         The number of slots, rounded up to a power of two; delays up to this many frames are found in one visit.
+     */
+    public TimingWheel(int slots) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask  = size - 1;
+    }
+
+    /**
+     * Schedules an effect. Safe to call from any thread.
+     *
+     * @param effect
+     *         The effect.
+     * @param delayFrames
+     *         The number of frames from the current one until the effect fires, at least 1.
+     *
+     * @return The handle to cancel the effect with.
+     */
+    public Timer schedule(DeferredEffect effect, int delayFrames) {
+        Timer timer = new Timer(effect);
+        arm(timer, delayFrames);
+        return timer;
+    }
+
+    /**
+     * Schedules the effect of a timer again. The timer itself is reused once it has left the wheel, that is once its
+     * effect fired or its cancellation was swept out; until then a new timer is scheduled. Only the owner of the timer may
+     * reschedule it.
+     *
+     * @param timer
+     *         A timer of this wheel.
+     * @param delayFrames
+     *         The number of frames from the current one until the effect fires, at least 1.
+     *
+     * @return The handle to cancel the effect with: the given timer, or a new one.
+     */
+    public Timer reschedule(Timer timer, int delayFrames) {
+        if (timer.queued) {
+            return schedule(timer.effect, delayFrames);
+        }
+        timer.cancelled = false;
+        timer.expired   = false;
+        arm(timer, delayFrames);
+        return timer;
+    }
+
+    /**
+     * Moves the wheel on to the next frame and fires the effects due on it. Call it from the stepping thread once per
+     * step, before the fireworks move.
+     */
+    public void advance() {
+        long current = frame + 1;
+        frame = current;
+        Timer timer = slots.getAndSet((int) (current & mask), null);
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = null;
+            if (timer.cancelled) {
+                timer.queued = false;
+                pending.decrementAndGet();
+            } else if (timer.deadline <= current) {
+                pending.decrementAndGet();
+                timer.queued  = false;
+                timer.expired = true;
+                timer.effect.fire(current);
+            } else {
+                push(timer); // Due on a later turn of the wheel
+            }
+            timer = next;
+        }
+    }
+
+    /**
+     * @return The current frame of the wheel.
+     */
+    public long getFrame() {
+        return frame;
+    }
+
+    /**
+     * @return The number of effects waiting, including cancelled ones that have not been swept out yet.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    private void arm(Timer timer, int delayFrames) {
+        timer.deadline = frame + Math.max(1, delayFrames);
+        timer.queued   = true;
+        pending.incrementAndGet();
+        push(timer);
+    }
+
+    private void push(Timer timer) {
+        int slot = (int) (timer.deadline & mask);
+        Timer head;
+        do {
+            head       = slots.get(slot);
+            timer.next = head;
+        } while (!slots.compareAndSet(slot, head, timer));
+    }
+
+    /**
+     * An effect that fires on a later frame.
+     */
+    @FunctionalInterface
+    public interface DeferredEffect {
+        /**
+         * Fires the effect on the stepping thread.
+         *
+         * @param frame
+         *         The frame the effect fires on.
+         */
+        void fire(long frame);
+    }
+
+    /**
+     * A scheduled effect.
+     */
+    public static final class Timer {
+        private final DeferredEffect effect;
+        private       long           deadline;
+        private       Timer          next;
+        private volatile boolean     cancelled = false;
+        private volatile boolean     expired   = false;
+        private volatile boolean     queued    = false; // True while the timer sits in a slot
+
+        private Timer(DeferredEffect effect) {
+            this.effect = effect;
+        }
+
+        /**
+         * Keeps the effect from firing, if it has not fired yet. Cancelled effects are swept out when their slot comes
+         * round.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return True until the effect fires or the timer is cancelled.
+         */
+        public boolean isPending() {
+            return !cancelled && !expired;
+        }
+
+        public DeferredEffect getEffect() {
+            return effect;
+        }
+
+        /**
+         * @return True once the effect has fired.
+         */
+        public boolean isExpired() {
+            return expired;
+        }
+
+        /**
+         * @return The frame the effect fires on.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.hyperion.fireworks.engine;
+
+/**
+ * The logical bounds the simulation runs in, in pixels with the origin at the top left. The simulation only ever reads
+ * these bounds, so it does not need a JavaFX node; a UI keeps them in sync with whatever it draws on, which makes the
+ * viewport the one cached copy of the drawing surface's size.
+ * <p>
+ * The cull margin widens the bounds for culling: particles are only hidden or retired once they are further than the
+ * margin outside the viewport, so particles drawn with a glow or at an interpolated position never pop out at the edges.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class Viewport {
+    private volatile double width;
+    private volatile double height;
+    private volatile double cullMargin = 32;
+
+    /**
+     * Constructs a Viewport.
+     *
+     * @param width
+     *         The width in pixels.
+     * @param height
+     *         The height in pixels.
+     */
+    public Viewport(double width, double height) {
+        this.width  = width;
+        this.height = height;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public void setSize(double width, double height) {
+        this.width  = width;
+        this.height = height;
+    }
+
+    public double getCullMargin() {
+        return cullMargin;
+    }
+
+    public void setCullMargin(double cullMargin) {
+        this.cullMargin = cullMargin;
+    }
+
+    /**
+     * @return true if the point lies inside the viewport, edges included.
+     */
+    public boolean contains(double x, double y) {
+        return contains(x, y, width, height);
+    }
+
+    /**
+     * @return true if the point lies inside bounds of the given size, edges included; for callers that read the size
+     * once and test several points.
+     */
+    public static boolean contains(double x, double y, double width, double height) {
+        return x >= 0 && x <= width && y >= 0 && y <= height;
+    }
+}
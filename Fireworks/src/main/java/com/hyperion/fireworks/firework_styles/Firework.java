@@ -1,65 +1,218 @@
 package com.hyperion.fireworks.firework_styles;
 
+import com.hyperion.fireworks.engine.ParticleBudget;
+import com.hyperion.fireworks.engine.QualityLevel;
+import com.hyperion.fireworks.engine.TimingWheel;
+import com.hyperion.fireworks.engine.Viewport;
+import com.hyperion.fireworks.particle.BurstGenerator;
 import com.hyperion.fireworks.particle.DecayFactor;
-import com.hyperion.fireworks.particle.Particle;
-import com.hyperion.fireworks.particle.ParticleCreator;
-import com.hyperion.paintrandomizer.PaintRandomizer;
+import com.hyperion.fireworks.particle.PaintPalette;
+import com.hyperion.fireworks.particle.ParticleStore;
+import com.hyperion.fireworks.particle.SubEmitter;
+import com.hyperion.fireworks.render.FireworkRenderer;
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Paint;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public abstract class Firework {
     private static final double GRAVITY = 9.81; // Acceleration due to gravity (m/s^2)
     public static final double SCALE       = 10.0; // 10 pixels per meter
-    private static final int    TAIL_LENGTH = 20;
+    private static final double MIN_LAUNCH_ANGLE = Math.toRadians(60); // Launch angles used without a launch angle supplier
+    private static final double MAX_LAUNCH_ANGLE = Math.toRadians(120);
+    private static final int    OWN_WHEEL_SLOTS  = 64; // Slots of the timing wheel of a firework that was given none
 
-    protected              List<Particle> particles = new ArrayList<>();
-    protected static final Random          RANDOM    = new Random();
-    protected static final PaintRandomizer PAINT_RANDOMIZER;
-    static {
-        PaintRandomizer.Builder builder = new PaintRandomizer.Builder();
-        builder.gradientStyle(() -> PaintRandomizer.GradientStyle.values()[RANDOM.nextInt(PaintRandomizer.GradientStyle.values().length)]);
-        PAINT_RANDOMIZER = builder.build();
-    }
+    protected final ParticleStore particles = new ParticleStore();
+
+    protected PaintPalette     palette        = PaintPalette.getDefault();
+    protected BurstGenerator   burstGenerator = BurstGenerator.getDefault();
+    protected SplittableRandom random         = new SplittableRandom(); // This firework's own random stream
+
+    private TimingWheel timingWheel     = null; // Created on first use when the engine did not share its wheel
+    private boolean     ownsTimingWheel = false; // True when move() has to turn the wheel itself
+
+    private final List<TimingWheel.Timer> deferredEffects = new ArrayList<>(); // One timer per effect ever deferred, re-armed by later defers
+
+
+    protected double  x; // Position in pixels
+    protected double  y;
+    protected Paint   color;
+    protected double fade;
+    protected double size;
 
+    protected boolean hasExploded;
 
-    protected Point2D position;
-    protected Paint   color = PAINT_RANDOMIZER.generateRandomVibrantPaint();
-    protected double  alpha = 1.0;
-    protected double fade = Math.random() * 0.1;
-    protected double size = RANDOM.nextDouble(5, 15);
+    protected final Trail previousPositions = new Trail(Trail.MAX_LENGTH);
 
-    protected boolean hasExploded = false;
+    private int tailLength = Trail.MAX_LENGTH; // Tail positions at full detail; set from the type when pooled
 
-    protected final Deque<Point2D> previousPositions = new LinkedList<>();
+    protected final Viewport viewport;
 
-    protected final Canvas          canvas;
-    protected final GraphicsContext  graphicsContext;
+    protected double particleScale = 1.0; // Fraction of the style's explosion particles spawned
+
+    private ParticleBudget particleBudget    = null; // Null when particles are not budgeted
+    private int            reservedParticles = 0; // Part of the held budget not spawned yet
+    private int            heldParticles     = 0; // Budget held: reserved plus live particles
+    private int            owedParticles     = 0; // Spawned past the reservation since the last settle, not yet taken from the budget
+
+    private int culledParticles = 0; // Particles retired by culling in the last move
+
+    private final IntUnaryOperator particleClaim = this::claimParticles; // Lets sub-emitters draw from the budget
 
     protected double initialSpeed; // Initial speed in meters per second
     protected double launchAngle; // Launch angle in radians
-    protected Point2D velocity; // Velocity in pixels per frame
+    protected double velocityX; // Velocity in pixels per second
+    protected double velocityY;
     protected double fallVelocity;
     protected final double timeStep;
 
-    public Firework(Point2D position, Canvas canvas, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
-        this.canvas = canvas;
-        this.graphicsContext = canvas.getGraphicsContext2D();
-        this.position = position;
-        this.launchAngle = lauchAngleSupplier.get();
+    public Firework(Point2D position, Viewport viewport, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
+        this.viewport = viewport;
         this.timeStep = timeStep;
-        initializeFirework(minLaunchHeightSupplier);
+        initializeFirework(position, lauchAngleSupplier, minLaunchHeightSupplier);
+    }
+
+    /**
+     * Resets this firework to a freshly launched rocket so a pooled instance can be reused instead of constructing a new
+     * one. Whatever the firework still holds of its particle budget is given back and its pending deferred effects are
+     * cancelled. Subclasses that keep their own state must override this and call {@code super.reset(...)}.
+     *
+     * @param position
+     *         The initial position of the firework.
+     * @param lauchAngleSupplier
+     *         A supplier for the launch angle, or null to pick one from this firework's random stream.
+     * @param minLaunchHeightSupplier
+     *         The Minimum Launch Height for the firework
+     */
+    public void reset(Point2D position, Supplier<Double> lauchAngleSupplier, Supplier<Double> minLaunchHeightSupplier) {
+        releaseParticleBudget();
+        cancelDeferredEffects();
+        initializeFirework(position, lauchAngleSupplier, minLaunchHeightSupplier);
+        particleScale     = 1.0;
+        culledParticles   = 0;
+    }
+
+    /**
+     * Applies a detail level to this firework: the share of explosion particles it spawns and the length of its tail.
+     * Call it after launching or resetting the firework.
+     *
+     * @param qualityLevel
+     *         The detail level.
+     */
+    public void applyQuality(QualityLevel qualityLevel) {
+        particleScale = qualityLevel.getParticleScale();
+        previousPositions.setLength(qualityLevel.scaleTailLength(tailLength));
+    }
+
+    /**
+     * Sets the number of tail positions drawn behind the rocket at full detail.
+     *
+     * @param tailLength
+     *         The tail length, clamped to {@link Trail#MAX_LENGTH}.
+     */
+    public void setTailLength(int tailLength) {
+        this.tailLength = Math.max(0, Math.min(tailLength, Trail.MAX_LENGTH));
+        previousPositions.setLength(this.tailLength);
+    }
+
+    public int getTailLength() {
+        return tailLength;
+    }
+
+    /**
+     * Makes this firework draw its particles from a budget. Call it after {@link #applyQuality(QualityLevel)}.
+     *
+     * @param particleBudget
+     *         The budget to draw from.
+     * @param reservation
+     *         The particles already taken from the budget for this firework's explosions.
+     * @param burstFraction
+     *         The share of its burst this firework was admitted with; below 1 the explosions shrink accordingly.
+     */
+    public void admit(ParticleBudget particleBudget, int reservation, double burstFraction) {
+        this.particleBudget    = particleBudget;
+        this.reservedParticles = reservation;
+        this.heldParticles     = reservation;
+        this.particleScale *= burstFraction;
+    }
+
+    /**
+     * Gives everything this firework holds back to its particle budget and detaches it from the budget. Call it when the
+     * firework is retired.
+     */
+    public void releaseParticleBudget() {
+        if (particleBudget != null) {
+            particleBudget.release(heldParticles);
+        }
+        particleBudget    = null;
+        reservedParticles = 0;
+        heldParticles     = 0;
+        owedParticles     = 0;
     }
 
-    private void initializeFirework(Supplier<Double> minLaunchHeightSupplier) {
-        // Define the minimum and maximum heights based on the canvas size
-        double maxHeightMeters = canvas.getHeight() / (SCALE * 1.5); // Max height in meters
+    /**
+     * Takes the particles spawned past the reservation since the last settle from the shared budget, and drops the
+     * newest of them if the budget cannot take them all, so under contention explosions shrink. The engine settles its
+     * fireworks in list order on the stepping thread, after the deferred effects fired and after the fireworks moved,
+     * which keeps the budget out of the parallel move: which explosion shrinks does not depend on thread timing.
+     */
+    public void settleParticleBudget() {
+        if (owedParticles == 0) {
+            return;
+        }
+        int granted = particleBudget.tryAcquire(owedParticles);
+        heldParticles += granted;
+        if (granted < owedParticles) {
+            // Nothing is compacted between a claim and the settle, so the particles spawned on credit are the newest
+            particles.truncate(particles.size() - (owedParticles - granted));
+        }
+        owedParticles = 0;
+    }
+
+    /**
+     * Claims particles for an explosion. They come from this firework's reservation first; the rest are spawned on
+     * credit and settled with the shared budget by {@link #settleParticleBudget()}.
+     *
+     * @param wanted
+     *         The number of particles the explosion would like to spawn.
+     *
+     * @return The number of particles the explosion may spawn.
+     */
+    protected int claimParticles(int wanted) {
+        if (particleBudget != null) {
+            int fromReservation = Math.min(wanted, reservedParticles);
+            reservedParticles -= fromReservation;
+            owedParticles += wanted - fromReservation;
+        }
+        return wanted;
+    }
+
+    /**
+     * @return The type of this firework.
+     */
+    public abstract FireworkType getType();
+
+    private void initializeFirework(Point2D position, Supplier<Double> lauchAngleSupplier, Supplier<Double> minLaunchHeightSupplier) {
+        this.x = position.getX();
+        this.y = position.getY();
+        this.launchAngle = lauchAngleSupplier != null ? lauchAngleSupplier.get() : random.nextDouble(MIN_LAUNCH_ANGLE, MAX_LAUNCH_ANGLE);
+        this.color = palette.get(palette.nextIndex(random));
+        this.fade = random.nextDouble() * 0.1;
+        this.size = random.nextDouble(5, 15);
+        previousPositions.taper(size, fade);
+        this.hasExploded = false;
+        previousPositions.clear();
+        particles.clear();
+        initializeLaunch(minLaunchHeightSupplier);
+    }
+
+    private void initializeLaunch(Supplier<Double> minLaunchHeightSupplier) {
+        // Define the minimum and maximum heights based on the viewport size
+        double maxHeightMeters = viewport.getHeight() / (SCALE * 1.5); // Max height in meters
         double minHeightMeters = minLaunchHeightSupplier.get() ; // Minimum height in meters
 
 
@@ -70,48 +223,40 @@ public abstract class Firework {
         double maxInitialSpeed = maxInitialSpeedY / Math.sin(Math.PI / 4); // Optimal angle for max height
 
         // Randomly choose an initial speed within the range
-        initialSpeed = RANDOM.nextDouble(minInitialSpeed, maxInitialSpeed);
+        initialSpeed = random.nextDouble(minInitialSpeed, maxInitialSpeed);
 
         // Convert speed and angle to velocity in pixels
-        double velocityX = Math.cos(launchAngle) * initialSpeed * SCALE;
-        double velocityY = -Math.sin(launchAngle) * initialSpeed * SCALE; // Y is negative because screen coordinates go down
-        this.velocity = new Point2D(velocityX, velocityY);
-        this.fallVelocity = RANDOM.nextDouble(0, 250);
+        this.velocityX = Math.cos(launchAngle) * initialSpeed * SCALE;
+        this.velocityY = -Math.sin(launchAngle) * initialSpeed * SCALE; // Y is negative because screen coordinates go down
+        this.fallVelocity = random.nextDouble(0, 250);
     }
 
     public abstract void explode();
 
     public void move() {
+        if (ownsTimingWheel) {
+            timingWheel.advance();
+        }
         if (!hasExploded) {
             // Update the vertical velocity to account for gravity
             // Gravity is in m/s^2, so convert it to pixels per time step, and adjust for the time step
             // Since in screen coordinates Y increases downwards, gravity is added to make the firework fall.
-            double velocityY = velocity.getY() + (GRAVITY * timeStep * SCALE);
+            velocityY += GRAVITY * timeStep * SCALE;
 
             // Update the position with the current velocity
             // Position change is velocity times time step
-            double newX = position.getX() + velocity.getX() * timeStep;
-            double newY = position.getY() + velocityY * timeStep; // In screen coordinates, Y increases downwards
-
-            // Update the velocity and position of the firework
-            velocity = new Point2D(velocity.getX(), velocityY);
-            position = new Point2D(newX, newY);
+            x += velocityX * timeStep;
+            y += velocityY * timeStep; // In screen coordinates, Y increases downwards
 
             // Add current position to the tail
-            if (previousPositions.size() >= TAIL_LENGTH) {
-                previousPositions.pollFirst();
-            }
-            previousPositions.offerLast(position);
-
-            boolean isOutOfBoundsBottom = Arrays.stream(new Point2D[]{new Point2D(0, 200)})
-                                                .anyMatch(point2D -> !canvas.getLayoutBounds()
-                                                                            .contains(position.add(point2D)));
+            previousPositions.add(x, y);
 
-            boolean isOutOfBoundsTopLeftRight = Arrays.stream(new Point2D[]{new Point2D(0, -100),
-                                                                            new Point2D(-100, 0),
-                                                                            new Point2D(100, 0)})
-                                                      .anyMatch(point2D -> !canvas.getLayoutBounds()
-                                                                                  .contains(position.add(point2D)));
+            // Read the bounds once; the UI may resize the viewport from another thread
+            double  width                     = viewport.getWidth();
+            double  height                    = viewport.getHeight();
+            boolean isOutOfBoundsBottom       = !Viewport.contains(x, y + 200, width, height);
+            boolean isOutOfBoundsTopLeftRight = !Viewport.contains(x, y - 100, width, height) || !Viewport.contains(x - 100, y, width, height)
+                                                || !Viewport.contains(x + 100, y, width, height);
 
             // Check for explosion conditions, like reaching the peak height or exceeding bounds
             // The firework should explode when it starts falling down, which is when the vertical velocity becomes positive.
@@ -123,54 +268,213 @@ public abstract class Firework {
                 explode();
             }
         } else {
-            // If the firework has exploded, update the particles
-            particles.removeIf(Particle::isDead);
-            particles.forEach(Particle::move);
+            // If the firework has exploded, update the particles and hand the budget of the dead ones back
+            int before = particles.size();
+            particles.compact();
+            releaseParticles(before - particles.size());
+            particles.move(random);
+            particles.emit(burstGenerator, random, particleClaim);
+
+            // Retire the particles that left the viewport for good and hide the ones that may still come back
+            double margin = viewport.getCullMargin();
+            culledParticles = particles.cull(-margin, -margin, viewport.getWidth() + margin, viewport.getHeight() + margin);
         }
     }
 
+    /**
+     * Draws this firework: the rocket and its tail before the explosion, the particles after it.
+     *
+     * @param renderer
+     *         The renderer to draw with.
+     * @param interpolation
+     *         How far the frame lies between the previous and the current step, from 0 to 1.
+     */
+    public void draw(FireworkRenderer renderer, double interpolation) {
+        if (!hasExploded) {
+            double rewind = (1 - interpolation) * timeStep;
+            renderer.drawRocket(x - velocityX * rewind, y - velocityY * rewind, size, color, previousPositions);
+        } else {
+            renderer.drawParticles(particles, interpolation);
+        }
+    }
 
+    public boolean hasExploded() {
+        return hasExploded;
+    }
 
+    public ParticleStore getParticles() {
+        return particles;
+    }
 
-    public void draw() {
-        if (!hasExploded) {
-            Iterator<Point2D> iter     = previousPositions.descendingIterator();
-            double            tempSize = size;
-            while (iter.hasNext()) {
-                Point2D pos = iter.next();
-                graphicsContext.setGlobalAlpha(alpha);  // Set the opacity
-                graphicsContext.setFill(color);
-                graphicsContext.fillOval(pos.getX(), pos.getY(), size, size);
-                alpha -= fade; // Decrease opacity for older positions
-                size -= 0.2;  // Decrease size for older positions
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getSize() {
+        return size;
+    }
+
+    public Paint getColor() {
+        return color;
+    }
+
+    public double getFade() {
+        return fade;
+    }
+
+    public Trail getTrail() {
+        return previousPositions;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * @return The number of particles culled in the last move because they can never re-enter the viewport.
+     */
+    public int getCulledParticleCount() {
+        return culledParticles;
+    }
+
+    /**
+     * Cancels the effects this firework deferred that have not fired yet. Call it when the firework is retired.
+     */
+    public void cancelDeferredEffects() {
+        for (int i = 0; i < deferredEffects.size(); i++) {
+            deferredEffects.get(i).cancel();
+        }
+    }
+
+    /**
+     * @return True if an effect this firework deferred has yet to fire.
+     */
+    public boolean hasPendingEffects() {
+        for (int i = 0; i < deferredEffects.size(); i++) {
+            if (deferredEffects.get(i).isPending()) {
+                return true;
             }
-            // Reset the alpha for the next drawing
-            alpha = 1.0;
-
-            // Reset the size for the next drawing
-            size = tempSize;
-//            // Draw current position
-            graphicsContext.setFill(color);
-            graphicsContext.fillOval(position.getX(), position.getY(), size, size);
-        } else {
-            particles.forEach(particle -> particle.draw(graphicsContext));
         }
+        return false;
     }
 
     public boolean isDead() {
-        return hasExploded && particles.stream()
-                                       .allMatch(Particle::isDead);
-    }
-
-    protected Collection<Particle> createExplosionParticles(int numParticles, double minSpeed, double maxSpeed, double minSize, double maxSize, DecayFactor decayFactor, ParticleCreator particleCreator) {
-        return IntStream.range(0, numParticles)
-                        .mapToObj(i -> {
-                            double  angle    = RANDOM.nextDouble() * 2 * Math.PI;
-                            double  speed    = RANDOM.nextDouble(minSpeed, maxSpeed); // Speed range for explosion particles
-                            double size = RANDOM.nextDouble(minSize, maxSize);
-                            Point2D velocity = new Point2D(Math.cos(angle) * speed, Math.sin(angle) * speed);
-                            return particleCreator.create(this.position, velocity, PAINT_RANDOMIZER.generateRandomVibrantPaint(), size, decayFactor.getDecayRate());
-                        })
-                        .collect(Collectors.toList());
+        return hasExploded && particles.allDead();
+    }
+
+    /**
+     * Makes this firework take its rocket color and its particle paints from the given palette, and picks a new rocket
+     * color from it.
+     *
+     * @param palette
+     *         The palette of the show.
+     */
+    public void setPalette(PaintPalette palette) {
+        this.palette = palette;
+        particles.setPalette(palette);
+        color = palette.get(palette.nextIndex(random));
+    }
+
+    /**
+     * Gives this firework its own random stream. Call it before {@link #reset}, so the launch is drawn from the new
+     * stream too; a firework that is given a stream split from a seeded generator behaves the same on every run.
+     *
+     * @param random
+     *         The random stream of this firework.
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Sets the generator that spawns this firework's explosion particles.
+     *
+     * @param burstGenerator
+     *         The burst generator of the show.
+     */
+    public void setBurstGenerator(BurstGenerator burstGenerator) {
+        this.burstGenerator = burstGenerator;
+    }
+
+    /**
+     * Makes this firework schedule its deferred effects on a wheel shared with the rest of the show, turned by the
+     * engine once per step. Without one, a firework creates its own wheel and turns it at the start of every
+     * {@link #move()}.
+     *
+     * @param timingWheel
+     *         The timing wheel of the show.
+     */
+    public void setTimingWheel(TimingWheel timingWheel) {
+        cancelDeferredEffects();
+        deferredEffects.clear(); // Timers belong to the wheel they were scheduled on
+        this.timingWheel     = timingWheel;
+        this.ownsTimingWheel = false;
+    }
+
+    /**
+     * Schedules an effect of this firework, such as a second burst, on the timing wheel. The effect fires on the stepping
+     * thread before the fireworks move, unless the firework is reset or retired first. Deferring an effect again re-arms
+     * the timer it had, so a pooled firework schedules its effects without allocating.
+     *
+     * @param delayFrames
+     *         The number of steps until the effect fires, at least 1.
+     * @param effect
+     *         The effect.
+     *
+     * @return The handle to cancel the effect with, for instance when the firework is reset.
+     */
+    protected TimingWheel.Timer defer(int delayFrames, TimingWheel.DeferredEffect effect) {
+        if (timingWheel == null) {
+            timingWheel     = new TimingWheel(OWN_WHEEL_SLOTS);
+            ownsTimingWheel = true;
+        }
+        for (int i = 0; i < deferredEffects.size(); i++) {
+            TimingWheel.Timer timer = deferredEffects.get(i);
+            if (timer.getEffect() == effect && !timer.isPending()) {
+                timer = timingWheel.reschedule(timer, delayFrames);
+                deferredEffects.set(i, timer);
+                return timer;
+            }
+        }
+        TimingWheel.Timer timer = timingWheel.schedule(effect, delayFrames);
+        deferredEffects.add(timer);
+        return timer;
+    }
+
+    private void releaseParticles(int released) {
+        if (particleBudget != null && released > 0) {
+            particleBudget.release(released);
+            heldParticles -= released;
+        }
+    }
+
+    protected void createExplosionParticles(int numParticles, double minSpeed, double maxSpeed, double minSize, double maxSize, DecayFactor decayFactor, int flags) {
+        createExplosionParticles(numParticles, minSpeed, maxSpeed, minSize, maxSize, decayFactor, flags, null);
+    }
+
+    /**
+     * Creates the particles of an explosion that spawn more particles later on, such as sparkles, crackle or the stages of
+     * a multi-stage shell.
+     *
+     * @param subEmitter
+     *         The sub-emitter of every particle, or null for none.
+     */
+    protected void createExplosionParticles(int numParticles, double minSpeed, double maxSpeed, double minSize, double maxSize, DecayFactor decayFactor, int flags,
+                                            SubEmitter subEmitter) {
+        int scaledParticles = claimParticles(Math.max(1, (int) Math.round(numParticles * particleScale)));
+        burstGenerator.burst(particles, random, scaledParticles, x, y, minSpeed, maxSpeed, minSize, maxSize, BurstGenerator.RANDOM_PAINT,
+                             decayFactor.getDecayRate(), flags, subEmitter);
     }
 }
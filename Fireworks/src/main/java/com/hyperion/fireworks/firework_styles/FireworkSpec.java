@@ -0,0 +1,274 @@
+package com.hyperion.fireworks.firework_styles;
+
+import com.hyperion.fireworks.particle.DecayFactor;
+import com.hyperion.fireworks.particle.ExplosionTemplate;
+import com.hyperion.fireworks.particle.Particle;
+import com.hyperion.fireworks.particle.ParticleStore;
+import com.hyperion.fireworks.particle.SubEmitter;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Describes a firework style as data: the particles of its explosion, their kind, an optional follow-up burst, how long
+ * the show waits after launching it, and how often it is picked at random. A {@link SpecFirework} plays any spec, so a
+ * new style needs a spec and a {@link FireworkType} constant, not a subclass.
+ * <p>
+ * Every spec bakes a small set of {@link ExplosionTemplate}s when it is built, and an explosion copies a randomly chosen
+ * template with one random rotation and speed factor. The templates are drawn from a fixed seed, so every run and every
+ * seeded show uses the same ones. Specs are immutable and may be shared by any number of fireworks and threads.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class FireworkSpec {
+    private static final long TEMPLATE_SEED = 0x5EED_F1AEL; // Fixed so every run bakes the same templates
+
+    private final int                 particleCount;
+    private final double              minSpeed;
+    private final double              maxSpeed;
+    private final double              minSize;
+    private final double              maxSize;
+    private final DecayFactor         decayFactor;
+    private final int                 flags;
+    private final SubEmitter          subEmitter;
+    private final int                 followUpParticles;
+    private final int                 followUpDelayFrames;
+    private final double              speedJitter;
+    private final double              extraLaunchDelay;
+    private final double              weight;
+    private final int                 tailLength;
+    private final ExplosionTemplate[] templates;
+
+    private FireworkSpec(Builder builder) {
+        particleCount       = builder.particleCount;
+        minSpeed            = builder.minSpeed;
+        maxSpeed            = builder.maxSpeed;
+        minSize             = builder.minSize;
+        maxSize             = builder.maxSize;
+        decayFactor         = builder.decayFactor;
+        flags               = builder.flags;
+        subEmitter          = builder.subEmitter;
+        followUpParticles   = builder.followUpParticles;
+        followUpDelayFrames = builder.followUpDelayFrames;
+        speedJitter         = builder.speedJitter;
+        extraLaunchDelay    = builder.extraLaunchDelay;
+        weight              = builder.weight;
+        tailLength          = builder.tailLength;
+
+        SplittableRandom random = new SplittableRandom(TEMPLATE_SEED);
+        templates = new ExplosionTemplate[Math.max(1, builder.templateCount)];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = new ExplosionTemplate(random, Math.max(particleCount, followUpParticles), minSpeed, maxSpeed, minSize, maxSize);
+        }
+    }
+
+    /**
+     * Spawns a burst of this style from a randomly chosen template.
+     *
+     * @param store
+     *         The store to append the particles to.
+     * @param random
+     *         The random number generator of the firework.
+     * @param count
+     *         The number of particles.
+     * @param x
+     *         The x position of the origin in pixels.
+     * @param y
+     *         The y position of the origin in pixels.
+     * @param paletteIndex
+     *         The paint of all particles, or {@link com.hyperion.fireworks.particle.BurstGenerator#RANDOM_PAINT} to pick
+     *         one per particle.
+     */
+    public void burst(ParticleStore store, RandomGenerator random, int count, double x, double y, int paletteIndex) {
+        templates[random.nextInt(templates.length)].spawn(store, random, count, x, y, speedJitter, paletteIndex, decayFactor.getDecayRate(), flags,
+                                                          subEmitter);
+    }
+
+    /**
+     * @return The number of particles of the main explosion at full detail.
+     */
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    /**
+     * @return The number of particles of the follow-up burst, 0 for none.
+     */
+    public int getFollowUpParticles() {
+        return followUpParticles;
+    }
+
+    /**
+     * @return The number of steps between the main explosion and the follow-up burst.
+     */
+    public int getFollowUpDelayFrames() {
+        return followUpDelayFrames;
+    }
+
+    /**
+     * @return The number of particles all explosions spawn at full detail, not counting particles spawned later by the
+     * particles themselves.
+     */
+    public int getBurstSize() {
+        return particleCount + followUpParticles;
+    }
+
+    /**
+     * @return The most steps a paint handed out to an explosion of this style stays in use: the lifetime of the explosion
+     * particles plus that of the particles they spawn with the same paint.
+     */
+    public int getParticleLifetime() {
+        return decayFactor.getLifetime() + (subEmitter != null ? subEmitter.getLifetime() : 0);
+    }
+
+    public double getExtraLaunchDelay() {
+        return extraLaunchDelay;
+    }
+
+    /**
+     * @return How often this style is picked for random launches, relative to the weights of the other styles.
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    public int getTailLength() {
+        return tailLength;
+    }
+
+    /**
+     * @return A builder preset with the values of this spec, for styles that differ in a few values only.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.particleCount       = particleCount;
+        builder.minSpeed            = minSpeed;
+        builder.maxSpeed            = maxSpeed;
+        builder.minSize             = minSize;
+        builder.maxSize             = maxSize;
+        builder.decayFactor         = decayFactor;
+        builder.flags               = flags;
+        builder.subEmitter          = subEmitter;
+        builder.followUpParticles   = followUpParticles;
+        builder.followUpDelayFrames = followUpDelayFrames;
+        builder.speedJitter         = speedJitter;
+        builder.extraLaunchDelay    = extraLaunchDelay;
+        builder.weight              = weight;
+        builder.tailLength          = tailLength;
+        builder.templateCount       = templates.length;
+        return builder;
+    }
+
+    // Builder inner class
+    @SuppressWarnings({"unused", "UnusedReturnValue"})
+    public static class Builder {
+        private int         particleCount       = 100;
+        private double      minSpeed            = 3; // pixels per frame
+        private double      maxSpeed            = 5;
+        private double      minSize             = 3;
+        private double      maxSize             = 5;
+        private DecayFactor decayFactor         = DecayFactor.SLOW;
+        private int         flags               = Particle.FLAGS; // particle kind
+        private SubEmitter  subEmitter          = null;
+        private int         followUpParticles   = 0; // second burst, 0 for none
+        private int         followUpDelayFrames = 15;
+        private double      speedJitter         = 0.1; // largest fraction a burst's speed is scaled up or down by
+        private double      extraLaunchDelay    = 0; // seconds
+        private double      weight              = 1;
+        private int         tailLength          = 16;
+        private int         templateCount       = 8; // prebaked explosions
+
+        public Builder particleCount(int particleCount) {
+            this.particleCount = particleCount;
+            return this;
+        }
+
+        /**
+         * Sets the speed range of the explosion particles, in pixels per frame.
+         */
+        public Builder speed(double minSpeed, double maxSpeed) {
+            this.minSpeed = minSpeed;
+            this.maxSpeed = maxSpeed;
+            return this;
+        }
+
+        public Builder size(double minSize, double maxSize) {
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder decayFactor(DecayFactor decayFactor) {
+            this.decayFactor = decayFactor;
+            return this;
+        }
+
+        /**
+         * Sets the particle kind, see {@link Particle#FLAGS} and its siblings.
+         */
+        public Builder flags(int flags) {
+            this.flags = flags;
+            return this;
+        }
+
+        /**
+         * Attaches a sub-emitter to the explosion particles, for sparkles, crackle and other multi-stage effects.
+         */
+        public Builder subEmitter(SubEmitter subEmitter) {
+            this.subEmitter = subEmitter;
+            return this;
+        }
+
+        /**
+         * Adds a second burst of the same particles, fired the given number of steps after the first.
+         */
+        public Builder followUp(int followUpParticles, int followUpDelayFrames) {
+            this.followUpParticles   = followUpParticles;
+            this.followUpDelayFrames = followUpDelayFrames;
+            return this;
+        }
+
+        public Builder speedJitter(double speedJitter) {
+            this.speedJitter = speedJitter;
+            return this;
+        }
+
+        /**
+         * Sets the seconds the next launch batch waits on top of the usual interval after a batch with this style.
+         */
+        public Builder extraLaunchDelay(double extraLaunchDelay) {
+            this.extraLaunchDelay = extraLaunchDelay;
+            return this;
+        }
+
+        /**
+         * Sets how often this style is picked for random launches, relative to the other styles; 0 never picks it.
+         */
+        public Builder weight(double weight) {
+            this.weight = weight;
+            return this;
+        }
+
+        /**
+         * Sets the number of tail positions drawn behind the rocket at full detail.
+         */
+        public Builder tailLength(int tailLength) {
+            this.tailLength = tailLength;
+            return this;
+        }
+
+        /**
+         * Sets the number of prebaked explosions; more templates look less repetitive and cost more memory.
+         */
+        public Builder templateCount(int templateCount) {
+            this.templateCount = templateCount;
+            return this;
+        }
+
+        // build method
+        public FireworkSpec build() {
+            return new FireworkSpec(this);
+        }
+    }
+}
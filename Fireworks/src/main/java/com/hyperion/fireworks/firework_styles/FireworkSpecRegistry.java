@@ -0,0 +1,71 @@
+package com.hyperion.fireworks.firework_styles;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * The specs an engine plays for each {@link FireworkType}: the types' default specs, with any overrides given at
+ * construction. Random launches pick a type with a probability proportional to its spec's weight. A registry is
+ * immutable and may be shared by any number of threads.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class FireworkSpecRegistry {
+    private static final FireworkType[] TYPES = FireworkType.values();
+
+    private final Map<FireworkType, FireworkSpec> specs = new EnumMap<>(FireworkType.class);
+    private final double[]                        cumulativeWeights = new double[TYPES.length];
+
+    /**
+     * Constructs a registry of the default specs.
+     */
+    public FireworkSpecRegistry() {
+        this(Map.of());
+    }
+
+    /**
+     * Constructs a registry.
+     *
+     * @param overrides
+     *         The specs to play instead of the defaults of their types.
+     *
+     * @throws IllegalArgumentException
+     *         if no spec has a positive weight.
+     */
+    public FireworkSpecRegistry(Map<FireworkType, FireworkSpec> overrides) {
+        double total = 0;
+        for (FireworkType fireworkType : TYPES) {
+            FireworkSpec spec = overrides.getOrDefault(fireworkType, fireworkType.getDefaultSpec());
+            specs.put(fireworkType, spec);
+            total += Math.max(0, spec.getWeight());
+            cumulativeWeights[fireworkType.ordinal()] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one firework spec needs a positive weight");
+        }
+    }
+
+    public FireworkSpec get(FireworkType fireworkType) {
+        return specs.get(fireworkType);
+    }
+
+    /**
+     * Picks a type for a random launch, weighted by the specs' weights.
+     *
+     * @param random
+     *         The random number generator to pick with.
+     *
+     * @return The type.
+     */
+    public FireworkType pick(RandomGenerator random) {
+        double target = random.nextDouble() * cumulativeWeights[TYPES.length - 1];
+        for (int i = 0; i < TYPES.length - 1; i++) {
+            if (target < cumulativeWeights[i]) {
+                return TYPES[i];
+            }
+        }
+        return TYPES[TYPES.length - 1];
+    }
+}
@@ -1,10 +1,59 @@
 package com.hyperion.fireworks.firework_styles;
 
+import com.hyperion.fireworks.particle.DecayFactor;
+import com.hyperion.fireworks.particle.SparkleParticle;
+import com.hyperion.fireworks.particle.StrobeParticle;
+
+/**
+ * The firework styles. Each style is described by a default {@link FireworkSpec}; an engine may play a different spec
+ * for a type through its {@link FireworkSpecRegistry}.
+ */
 public enum FireworkType {
-        SPARKLE,
-        STROBE,
-        SMALL,
-        MEDIUM,
-        LARGE,
-        DOUBLE
+        SPARKLE(new FireworkSpec.Builder().particleCount(75).speed(0.5, 1).size(7, 14).decayFactor(DecayFactor.MEDIUM)
+                                          .flags(SparkleParticle.FLAGS).subEmitter(SparkleParticle.SUB_EMITTER).tailLength(20).build()),
+        STROBE(new FireworkSpec.Builder().particleCount(200).speed(0.1, 1.5).size(2, 5).decayFactor(DecayFactor.SUPER_SLOW)
+                                         .flags(StrobeParticle.FLAGS).tailLength(16).build()),
+        SMALL(new FireworkSpec.Builder().particleCount(50).speed(1, 3).size(1, 3).decayFactor(DecayFactor.MEDIUM).tailLength(12).build()),
+        MEDIUM(new FireworkSpec.Builder().particleCount(100).speed(3, 5).size(3, 5).decayFactor(DecayFactor.SLOW).tailLength(16).build()),
+        LARGE(new FireworkSpec.Builder().particleCount(300).speed(5, 7).size(5, 7).decayFactor(DecayFactor.SLOW).tailLength(24)
+                                        .extraLaunchDelay(1.5).build()), // extra 1.5 seconds for a large firework
+        DOUBLE(new FireworkSpec.Builder().particleCount(300).followUp(150, 15).speed(5, 7).size(10, 15).decayFactor(DecayFactor.SLOW)
+                                         .tailLength(24).extraLaunchDelay(2.0).build()); // extra 2 seconds for a double explosion
+
+        private final FireworkSpec defaultSpec;
+
+        FireworkType(FireworkSpec defaultSpec) {
+                this.defaultSpec = defaultSpec;
+        }
+
+        /**
+         * @return The spec of this style unless an engine is configured otherwise.
+         */
+        public FireworkSpec getDefaultSpec() {
+                return defaultSpec;
+        }
+
+        /**
+         * @return The number of particles the explosions of this type spawn at full detail, not counting particles spawned
+         * later by the particles themselves.
+         */
+        public int getBurstSize() {
+                return defaultSpec.getBurstSize();
+        }
+
+        /**
+         * @return The number of tail positions drawn behind rockets of this type at full detail, unless configured
+         * otherwise; at most {@link Trail#MAX_LENGTH}.
+         */
+        public int getTailLength() {
+                return defaultSpec.getTailLength();
+        }
+
+        /**
+         * @return The seconds the next batch waits on top of the usual interval after a batch with a firework of this type,
+         * so its long explosion is not crowded out.
+         */
+        public double getExtraLaunchDelay() {
+                return defaultSpec.getExtraLaunchDelay();
+        }
 }
@@ -1,29 +1,25 @@
 package com.hyperion.fireworks.firework_styles;
 
-import com.hyperion.fireworks.particle.DecayFactor;
-import com.hyperion.fireworks.particle.Particle;
+import com.hyperion.fireworks.engine.Viewport;
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.Canvas;
 
 import java.util.function.Supplier;
 
 /**
- * Represents a small-sized firework explosion.
+ * Represents a small-sized firework explosion. The explosion is described by {@link FireworkType#SMALL}.
  *
- * @version 1.0
+ * @version 2.0
  * @author Colin Jokisch
  */
-public class SmallFirework extends Firework {
-
-    private static final int NUM_PARTICLES = 50; // Number of particles for a small explosion
+public class SmallFirework extends SpecFirework {
 
     /**
      * Constructs a SmallFirework instance.
      *
      * @param position
      *         The initial position of the firework.
-     * @param canvas
-     *         The canvas where the firework is displayed.
+     * @param viewport
+     *         The bounds the firework flies in.
      * @param lauchAngleSupplier
      *         A supplier for the launch angle.
      * @param timeStep
@@ -31,16 +27,7 @@ public class SmallFirework extends Firework {
      * @param minLaunchHeightSupplier
      *         The Minimum Launch Height for the firework
      */
-    public SmallFirework(Point2D position, Canvas canvas, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
-        super(position, canvas, lauchAngleSupplier, timeStep, minLaunchHeightSupplier);
-    }
-
-    /**
-     * Explodes this firework, creating a number of particles with properties suitable for a small explosion.
-     */
-    @Override
-    public void explode() {
-        this.particles.addAll(super.createExplosionParticles(NUM_PARTICLES, 1, 3, 1, 3, DecayFactor.MEDIUM, Particle::new));
+    public SmallFirework(Point2D position, Viewport viewport, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
+        super(FireworkType.SMALL, position, viewport, lauchAngleSupplier, timeStep, minLaunchHeightSupplier);
     }
 }
-
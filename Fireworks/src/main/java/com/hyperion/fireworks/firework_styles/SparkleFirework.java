@@ -1,41 +1,34 @@
 package com.hyperion.fireworks.firework_styles;
 
-import com.hyperion.fireworks.particle.DecayFactor;
-import com.hyperion.fireworks.particle.Particle;
-import com.hyperion.fireworks.particle.SparkleParticle;
+import com.hyperion.fireworks.engine.Viewport;
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.Canvas;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Supplier;
 
-public class SparkleFirework extends Firework {
-    private static final int NUM_PARTICLES = 75;
+/**
+ * A SparkleFirework bursts into SparkleParticles, each of which bursts again as it fades. The explosion is described by
+ * {@link FireworkType#SPARKLE}.
+ *
+ * @version 2.0
+ * @author Colin Jokisch
+ */
+public class SparkleFirework extends SpecFirework {
 
-    public SparkleFirework(Point2D position, Canvas canvas, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
-        super(position, canvas, lauchAngleSupplier, timeStep, minLaunchHeightSupplier);
-    }
-
-    @Override
-    public void move() {
-        super.move();
-        if (hasExploded) {
-            List<Particle> newParticles = new ArrayList<>();
-            particles.forEach(particle -> {
-                if (particle instanceof SparkleParticle sparkleParticle) {
-                    if (sparkleParticle.getSecondExplosion()) {
-                        newParticles.addAll(sparkleParticle.explode());
-                    }
-                }
-            });
-            particles.addAll(newParticles);
-        }
-
-    }
-
-    @Override
-    public void explode() {
-        this.particles.addAll(super.createExplosionParticles(NUM_PARTICLES, .5, 1, 7, 14, DecayFactor.MEDIUM, SparkleParticle::new));
+    /**
+     * Constructs a SparkleFirework instance.
+     *
+     * @param position
+     *         The initial position of the firework.
+     * @param viewport
+     *         The bounds the firework flies in.
+     * @param lauchAngleSupplier
+     *         A supplier for the launch angle.
+     * @param timeStep
+     *         The time step for the simulation.
+     * @param minLaunchHeightSupplier
+     *         The Minimum Launch Height for the firework
+     */
+    public SparkleFirework(Point2D position, Viewport viewport, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
+        super(FireworkType.SPARKLE, position, viewport, lauchAngleSupplier, timeStep, minLaunchHeightSupplier);
     }
 }
@@ -0,0 +1,101 @@
+package com.hyperion.fireworks.firework_styles;
+
+import com.hyperion.fireworks.engine.TimingWheel;
+import com.hyperion.fireworks.engine.Viewport;
+import com.hyperion.fireworks.particle.BurstGenerator;
+import javafx.geometry.Point2D;
+
+import java.util.function.Supplier;
+
+/**
+ * A firework that plays a {@link FireworkSpec}: it explodes into a burst copied from one of the spec's prebaked
+ * templates and, if the spec has one, schedules the follow-up burst on the timing wheel. The engine builds every
+ * firework as a SpecFirework, so a new style is a spec rather than a subclass.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class SpecFirework extends Firework {
+    private final FireworkType               type;
+    private final TimingWheel.DeferredEffect followUp = frame -> followUp(); // Reused by every launch
+
+    private FireworkSpec      spec;
+    private TimingWheel.Timer followUpTimer = null; // Pending follow-up burst, null when idle
+
+    /**
+     * Constructs a SpecFirework that plays the default spec of its type.
+     *
+     * @param type
+     *         The type of the firework.
+     * @param position
+     *         The initial position of the firework.
+     * @param viewport
+     *         The bounds the firework flies in.
+     * @param launchAngleSupplier
+     *         A supplier for the launch angle.
+     * @param timeStep
+     *         The time step for the simulation.
+     * @param minLaunchHeightSupplier
+     *         The Minimum Launch Height for the firework
+     */
+    public SpecFirework(FireworkType type, Point2D position, Viewport viewport, Supplier<Double> launchAngleSupplier, double timeStep,
+                        Supplier<Double> minLaunchHeightSupplier) {
+        super(position, viewport, launchAngleSupplier, timeStep, minLaunchHeightSupplier);
+        this.type = type;
+        this.spec = type.getDefaultSpec();
+    }
+
+    @Override
+    public void reset(Point2D position, Supplier<Double> launchAngleSupplier, Supplier<Double> minLaunchHeightSupplier) {
+        super.reset(position, launchAngleSupplier, minLaunchHeightSupplier); // Cancels a pending follow-up
+        followUpTimer = null;
+    }
+
+    /**
+     * @return True once the explosion has faded and no follow-up burst is still to come.
+     */
+    @Override
+    public boolean isDead() {
+        return (followUpTimer == null || !followUpTimer.isPending()) && super.isDead();
+    }
+
+    @Override
+    public FireworkType getType() {
+        return type;
+    }
+
+    /**
+     * Makes this firework play another spec from its next explosion on.
+     *
+     * @param spec
+     *         The spec.
+     */
+    public void setSpec(FireworkSpec spec) {
+        this.spec = spec;
+    }
+
+    public FireworkSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Explodes this firework into the spec's main burst and schedules the follow-up burst, if any.
+     */
+    @Override
+    public void explode() {
+        burst(spec.getParticleCount());
+        if (spec.getFollowUpParticles() > 0) {
+            followUpTimer = defer(spec.getFollowUpDelayFrames(), followUp);
+        }
+    }
+
+    private void followUp() {
+        followUpTimer = null;
+        burst(spec.getFollowUpParticles());
+    }
+
+    private void burst(int numParticles) {
+        int scaledParticles = claimParticles(Math.max(1, (int) Math.round(numParticles * particleScale)));
+        spec.burst(particles, random, scaledParticles, x, y, BurstGenerator.RANDOM_PAINT);
+    }
+}
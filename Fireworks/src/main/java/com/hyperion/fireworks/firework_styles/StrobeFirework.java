@@ -1,28 +1,34 @@
 package com.hyperion.fireworks.firework_styles;
 
-import com.hyperion.fireworks.particle.DecayFactor;
-import com.hyperion.fireworks.particle.StrobeParticle;
+import com.hyperion.fireworks.engine.Viewport;
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.Canvas;
 
 import java.util.function.Supplier;
 
 /**
- * A StrobeFirework represents a firework that creates a strobe effect in the sky.
- * It extends the Firework class with the ability to generate StrobeParticles.
+ * A StrobeFirework represents a firework that creates a strobe effect in the sky: its particles are StrobeParticles.
+ * The explosion is described by {@link FireworkType#STROBE}.
  *
- * @version 1.0
+ * @version 2.0
  * @author Colin Jokisch
  */
-public class StrobeFirework extends Firework {
-    private static final int PARTICLE_COUNT = 200; // Number of particles in the strobe
+public class StrobeFirework extends SpecFirework {
 
-    public StrobeFirework(Point2D position, Canvas canvas, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
-        super(position, canvas, lauchAngleSupplier, timeStep, minLaunchHeightSupplier);
-    }
-
-    @Override
-    public void explode() {
-        this.particles.addAll(super.createExplosionParticles(PARTICLE_COUNT, 0.1, 1.5, 2, 5, DecayFactor.SUPER_SLOW, StrobeParticle::new));
+    /**
+     * Constructs a StrobeFirework instance.
+     *
+     * @param position
+     *         The initial position of the firework.
+     * @param viewport
+     *         The bounds the firework flies in.
+     * @param lauchAngleSupplier
+     *         A supplier for the launch angle.
+     * @param timeStep
+     *         The time step for the simulation.
+     * @param minLaunchHeightSupplier
+     *         The Minimum Launch Height for the firework
+     */
+    public StrobeFirework(Point2D position, Viewport viewport, Supplier<Double> lauchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
+        super(FireworkType.STROBE, position, viewport, lauchAngleSupplier, timeStep, minLaunchHeightSupplier);
     }
 }
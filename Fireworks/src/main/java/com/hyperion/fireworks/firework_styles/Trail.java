@@ -0,0 +1,173 @@
+package com.hyperion.fireworks.firework_styles;
+
+/**
+ * A fixed-capacity ring buffer of the most recent positions of a rocket. Positions are kept in primitive arrays so
+ * recording a position never allocates.
+ * <p>
+ * A trail also carries the taper of the tail: the opacity and size of every position by age are computed once per
+ * rocket by {@link #taper(double, double)}, so renderers only look them up, and positions the taper has faded out
+ * completely are not reported by {@link #visibleSize()}.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class Trail {
+    public static final  int    MAX_LENGTH = 32; // Capacity of rocket trails; the longest tail any firework type may ask for
+    private static final double SIZE_STEP  = 0.2; // Size lost per position of age
+
+    private double[] x;
+    private double[] y;
+    private double[] alphaRamp; // Opacity by age
+    private double[] sizeRamp; // Size by age
+    private int      head          = 0; // Index of the next write
+    private int      count         = 0;
+    private int      length; // Number of positions reported, at most the capacity
+    private int      visibleLength; // Number of ages the taper leaves visible
+
+    /**
+     * Constructs an empty Trail.
+     *
+     * @param capacity
+     *         The maximum number of positions kept.
+     */
+    public Trail(int capacity) {
+        x             = new double[capacity];
+        y             = new double[capacity];
+        alphaRamp     = new double[capacity];
+        sizeRamp      = new double[capacity];
+        length        = capacity;
+        visibleLength = 0; // Nothing is drawn until the trail is tapered
+    }
+
+    /**
+     * Computes the opacity and size of every tail position: the newest position is drawn at full opacity and the given
+     * size, and every older one loses {@code fade} opacity and a fixed amount of size.
+     *
+     * @param headSize
+     *         The size of the newest position.
+     * @param fade
+     *         The opacity lost per position of age.
+     */
+    public void taper(double headSize, double fade) {
+        visibleLength = alphaRamp.length;
+        for (int age = 0; age < alphaRamp.length; age++) {
+            alphaRamp[age] = 1.0 - age * fade;
+            sizeRamp[age]  = headSize - age * SIZE_STEP;
+            if (visibleLength == alphaRamp.length && (alphaRamp[age] <= 0 || sizeRamp[age] <= 0)) {
+                visibleLength = age; // Both ramps only decrease, so every older position is invisible too
+            }
+        }
+    }
+
+    /**
+     * Records a position, overwriting the oldest one once the trail is full.
+     */
+    public void add(double px, double py) {
+        x[head] = px;
+        y[head] = py;
+        head    = (head + 1) % x.length;
+        if (count < x.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Replaces the contents of this trail with a copy of another trail.
+     */
+    public void copyFrom(Trail other) {
+        if (x.length != other.x.length) {
+            x         = new double[other.x.length];
+            y         = new double[other.y.length];
+            alphaRamp = new double[other.alphaRamp.length];
+            sizeRamp  = new double[other.sizeRamp.length];
+        }
+        System.arraycopy(other.x, 0, x, 0, x.length);
+        System.arraycopy(other.y, 0, y, 0, y.length);
+        System.arraycopy(other.alphaRamp, 0, alphaRamp, 0, alphaRamp.length);
+        System.arraycopy(other.sizeRamp, 0, sizeRamp, 0, sizeRamp.length);
+        head          = other.head;
+        count         = other.count;
+        length        = other.length;
+        visibleLength = other.visibleLength;
+    }
+
+    /**
+     * Shortens the trail to its newest positions without giving up the capacity, so the length can later be raised
+     * again.
+     *
+     * @param length
+     *         The number of positions reported by {@link #size()}, clamped to the capacity.
+     */
+    public void setLength(int length) {
+        this.length = Math.max(0, Math.min(length, x.length));
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public void clear() {
+        head  = 0;
+        count = 0;
+    }
+
+    public int size() {
+        return Math.min(count, length);
+    }
+
+    /**
+     * @return The number of newest positions that are visible; older ones are faded out or shrunk to nothing.
+     */
+    public int visibleSize() {
+        return Math.min(size(), visibleLength);
+    }
+
+    /**
+     * @param age
+     *         0 for the newest position.
+     *
+     * @return The opacity of the position.
+     */
+    public double getAlpha(int age) {
+        return alphaRamp[age];
+    }
+
+    /**
+     * @param age
+     *         0 for the newest position.
+     *
+     * @return The size of the position.
+     */
+    public double getSize(int age) {
+        return sizeRamp[age];
+    }
+
+    /**
+     * @return The opacity of the rocket head: the opacity of the oldest position, as the head has always been drawn with
+     * the alpha the tail ended on, or full opacity while the trail is empty.
+     */
+    public double getHeadAlpha() {
+        return size() > 0 ? Math.max(0, alphaRamp[size() - 1]) : 1.0;
+    }
+
+    /**
+     * @param age
+     *         0 for the newest position, {@code size() - 1} for the oldest.
+     */
+    public double getX(int age) {
+        return x[indexOf(age)];
+    }
+
+    /**
+     * @param age
+     *         0 for the newest position, {@code size() - 1} for the oldest.
+     */
+    public double getY(int age) {
+        return y[indexOf(age)];
+    }
+
+    private int indexOf(int age) {
+        int i = head - 1 - age;
+        return i < 0 ? i + x.length : i;
+    }
+}
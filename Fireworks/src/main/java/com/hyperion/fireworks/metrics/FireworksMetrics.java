@@ -0,0 +1,298 @@
+package com.hyperion.fireworks.metrics;
+
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.firework_styles.FireworkType;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import com.sun.management.ThreadMXBean;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects runtime metrics of a running show and publishes them as a JMX MXBean, so the frame rate of an unattended
+ * display can be inspected remotely. The display loop reports every frame with the time spent stepping the physics and
+ * drawing; counts, pool statistics and the quality level are read from the engine when a client asks for them.
+ * <p>
+ * Per-frame recording does not allocate. Rates (launches per second, allocated bytes per frame) are computed over one
+ * second windows. Allocated bytes are read from the HotSpot per-thread allocation counter of the thread that draws, and
+ * include the physics when it runs on that thread.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class FireworksMetrics implements FireworksMetricsMXBean {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final SimulationEngine   engine;
+    private final FireworkRenderer   renderer;
+    private final FrameTimeHistogram frameTimes   = new FrameTimeHistogram();
+    private final FrameTimeHistogram physicsTimes = new FrameTimeHistogram();
+    private final FrameTimeHistogram drawTimes    = new FrameTimeHistogram();
+    private final ThreadMXBean       threads; // Null when the JVM cannot count allocated bytes per thread
+
+    private ObjectName objectName;
+
+    private long lastFrame         = -1;
+    private long windowStart       = -1;
+    private long windowFrames      = 0;
+    private long windowLaunches    = 0; // Launch count of the engine at the start of the window
+    private long windowAllocations = 0;
+
+    private volatile double launchesPerSecond      = 0;
+    private volatile long   allocatedBytesPerFrame = -1;
+
+    /**
+     * Constructs FireworksMetrics for a show.
+     *
+     * @param engine
+     *         The engine of the show.
+     * @param renderer
+     *         The renderer of the show.
+     */
+    public FireworksMetrics(SimulationEngine engine, FireworkRenderer renderer) {
+        this.engine   = engine;
+        this.renderer = renderer;
+        this.threads  = ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threadMXBean
+                        && threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled() ? threadMXBean : null;
+    }
+
+    /**
+     * Records a drawn frame. Call it on the drawing thread once per frame.
+     *
+     * @param now
+     *         The start of the frame in nanoseconds.
+     * @param physicsNanos
+     *         The time spent stepping the simulation in this frame, 0 if it ran elsewhere.
+     * @param drawNanos
+     *         The time spent drawing this frame.
+     */
+    public void recordFrame(long now, long physicsNanos, long drawNanos) {
+        if (lastFrame >= 0) {
+            frameTimes.record(now - lastFrame);
+        }
+        lastFrame = now;
+        if (physicsNanos > 0) {
+            physicsTimes.record(physicsNanos);
+        }
+        drawTimes.record(drawNanos);
+
+        windowFrames++;
+        if (windowStart < 0) {
+            startWindow(now);
+        } else if (now - windowStart >= WINDOW_NANOS) {
+            double seconds = (now - windowStart) / 1_000_000_000.0;
+            launchesPerSecond = (engine.getLaunchCount() - windowLaunches) / seconds;
+            if (threads != null) {
+                allocatedBytesPerFrame = (threads.getCurrentThreadAllocatedBytes() - windowAllocations) / windowFrames;
+            }
+            startWindow(now);
+        }
+    }
+
+    /**
+     * Records simulation steps that ran off the drawing thread. Call it on the thread that stepped.
+     *
+     * @param physicsNanos
+     *         The time spent stepping.
+     */
+    public void recordPhysics(long physicsNanos) {
+        physicsTimes.record(physicsNanos);
+    }
+
+    /**
+     * Forgets the time of the last frame, so a pause in drawing is not recorded as one long frame.
+     */
+    public void pause() {
+        lastFrame   = -1;
+        windowStart = -1;
+    }
+
+    /**
+     * Publishes these metrics with the platform MBean server under
+     * {@code com.hyperion.fireworks:type=FireworksMetrics,name=<name>}. Registering again under the same name does
+     * nothing; registering under another name moves the metrics there.
+     *
+     * @param name
+     *         Tells shows in the same JVM apart.
+     *
+     * @throws IllegalStateException
+     *         if another show's metrics hold the name or the MBean cannot be registered.
+     */
+    public void register(String name) {
+        try {
+            ObjectName newName = new ObjectName("com.hyperion.fireworks:type=FireworksMetrics,name=" + ObjectName.quote(name));
+            if (newName.equals(objectName)) {
+                return;
+            }
+            unregister();
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            objectName = newName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("Metrics named " + name + " are already registered", e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the fireworks metrics", e);
+        }
+    }
+
+    /**
+     * @return True while these metrics are published.
+     */
+    public boolean isRegistered() {
+        return objectName != null;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if they were registered.
+     */
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            // Already gone
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister the fireworks metrics", e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public double getFrameTimeP50() {
+        return frameTimes.getPercentile(50);
+    }
+
+    @Override
+    public double getFrameTimeP95() {
+        return frameTimes.getPercentile(95);
+    }
+
+    @Override
+    public double getFrameTimeP99() {
+        return frameTimes.getPercentile(99);
+    }
+
+    @Override
+    public double getFrameTimeMax() {
+        return frameTimes.getMax();
+    }
+
+    @Override
+    public double getPhysicsTimeP50() {
+        return physicsTimes.getPercentile(50);
+    }
+
+    @Override
+    public double getPhysicsTimeP99() {
+        return physicsTimes.getPercentile(99);
+    }
+
+    @Override
+    public double getDrawTimeP50() {
+        return drawTimes.getPercentile(50);
+    }
+
+    @Override
+    public double getDrawTimeP99() {
+        return drawTimes.getPercentile(99);
+    }
+
+    @Override
+    public long getFrameCount() {
+        return drawTimes.getCount();
+    }
+
+    @Override
+    public int getLiveFireworks() {
+        return engine.getLiveFireworkCount();
+    }
+
+    @Override
+    public int getLiveParticles() {
+        return engine.getLiveParticleCount();
+    }
+
+    @Override
+    public Map<String, Integer> getLiveFireworksByType() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (FireworkType fireworkType : FireworkType.values()) {
+            counts.put(fireworkType.name(), engine.getLiveFireworkCount(fireworkType));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Integer> getLiveParticlesByType() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (FireworkType fireworkType : FireworkType.values()) {
+            counts.put(fireworkType.name(), engine.getLiveParticleCount(fireworkType));
+        }
+        return counts;
+    }
+
+    @Override
+    public int getOffscreenParticles() {
+        return engine.getOffscreenParticleCount();
+    }
+
+    @Override
+    public long getCulledParticles() {
+        return engine.getCulledParticles();
+    }
+
+    @Override
+    public double getLaunchesPerSecond() {
+        return launchesPerSecond;
+    }
+
+    @Override
+    public long getTotalLaunches() {
+        return engine.getLaunchCount();
+    }
+
+    @Override
+    public Map<String, Double> getPoolHitRates() {
+        Map<String, Double> hitRates = new LinkedHashMap<>();
+        for (FireworkType fireworkType : FireworkType.values()) {
+            hitRates.put(fireworkType.name(), engine.getPoolStatistics(fireworkType).hitRate());
+        }
+        return hitRates;
+    }
+
+    @Override
+    public int getCachedPaints() {
+        return renderer.getCachedPaintCount();
+    }
+
+    @Override
+    public long getAllocatedBytesPerFrame() {
+        return allocatedBytesPerFrame;
+    }
+
+    @Override
+    public String getQualityLevel() {
+        return engine.getQualityLevel().name();
+    }
+
+    @Override
+    public void resetHistograms() {
+        frameTimes.reset();
+        physicsTimes.reset();
+        drawTimes.reset();
+    }
+
+    private void startWindow(long now) {
+        windowStart    = now;
+        windowFrames   = 0;
+        windowLaunches = engine.getLaunchCount();
+        if (threads != null) {
+            windowAllocations = threads.getCurrentThreadAllocatedBytes();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.hyperion.fireworks.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link FireworksMetrics}, readable with any JMX client (JConsole, VisualVM, Mission
+ * Control). Times are in milliseconds.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public interface FireworksMetricsMXBean {
+    double getFrameTimeP50();
+
+    double getFrameTimeP95();
+
+    double getFrameTimeP99();
+
+    double getFrameTimeMax();
+
+    double getPhysicsTimeP50();
+
+    double getPhysicsTimeP99();
+
+    double getDrawTimeP50();
+
+    double getDrawTimeP99();
+
+    long getFrameCount();
+
+    int getLiveFireworks();
+
+    int getLiveParticles();
+
+    Map<String, Integer> getLiveFireworksByType();
+
+    Map<String, Integer> getLiveParticlesByType();
+
+    /**
+     * @return The live particles outside the viewport, which are simulated but not drawn.
+     */
+    int getOffscreenParticles();
+
+    /**
+     * @return The particles retired early because they left the viewport for good.
+     */
+    long getCulledParticles();
+
+    double getLaunchesPerSecond();
+
+    long getTotalLaunches();
+
+    /**
+     * @return The hit rate of each firework pool, from 0 to 1.
+     */
+    Map<String, Double> getPoolHitRates();
+
+    /**
+     * @return The number of paints held by the renderer's caches.
+     */
+    int getCachedPaints();
+
+    /**
+     * @return The bytes allocated by the FX thread per drawn frame, averaged over the last second.
+     */
+    long getAllocatedBytesPerFrame();
+
+    String getQualityLevel();
+
+    /**
+     * Clears the time histograms so the percentiles only cover the frames from now on.
+     */
+    void resetHistograms();
+}
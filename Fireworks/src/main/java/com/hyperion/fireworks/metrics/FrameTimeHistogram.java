@@ -0,0 +1,74 @@
+package com.hyperion.fireworks.metrics;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-resolution histogram of durations for percentile queries. Recording is a bucket increment with no allocation,
+ * so it can be called on every frame. Durations are kept in {@value #BUCKET_NANOS} ns buckets up to
+ * {@value #BUCKET_COUNT} buckets; longer durations land in the last bucket and are reported through {@link #getMax()}.
+ * <p>
+ * One thread records; any thread may read. Reads are not atomic with respect to recording, so a percentile read while
+ * a frame is being recorded may be off by that frame.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class FrameTimeHistogram {
+    private static final long BUCKET_NANOS = 50_000; // 0.05 ms resolution
+    private static final int  BUCKET_COUNT = 2_000; // Covers 0 to 100 ms
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private volatile long total = 0;
+    private volatile long max   = 0;
+
+    public void record(long nanos) {
+        int bucket = (int) Math.min(BUCKET_COUNT - 1, Math.max(0, nanos) / BUCKET_NANOS);
+        counts[bucket]++;
+        if (nanos > max) {
+            max = nanos;
+        }
+        total++;
+    }
+
+    /**
+     * Returns the duration below which the given share of the recorded durations fall.
+     *
+     * @param percentile
+     *         The percentile, from 0 to 100.
+     *
+     * @return The upper edge of the bucket holding the percentile, in milliseconds, or 0 if nothing was recorded.
+     */
+    public double getPercentile(double percentile) {
+        long recorded = total;
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank       = (long) Math.ceil(recorded * percentile / 100.0);
+        long cumulative = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            cumulative += counts[bucket];
+            if (cumulative >= rank) {
+                return Math.min((bucket + 1) * BUCKET_NANOS, Math.max(max, BUCKET_NANOS)) / 1_000_000.0;
+            }
+        }
+        return max / 1_000_000.0;
+    }
+
+    /**
+     * @return The longest recorded duration in milliseconds.
+     */
+    public double getMax() {
+        return max / 1_000_000.0;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        max   = 0;
+        total = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hyperion.fireworks.metrics;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+
+/**
+ * A small heads-up display of the {@link FireworksMetrics}, drawn over the fireworks. The text is refreshed twice a
+ * second rather than every frame, so the overlay itself barely shows up in the numbers it displays.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class MetricsOverlay extends Text {
+    private static final Duration REFRESH_INTERVAL = Duration.millis(500);
+
+    private final FireworksMetrics metrics;
+    private final Timeline         refreshTimeline;
+
+    public MetricsOverlay(FireworksMetrics metrics) {
+        this.metrics = metrics;
+        setFill(Color.LIME);
+        setFont(Font.font("Monospaced", 12));
+        setMouseTransparent(true);
+        setManaged(false); // Overlay only; keep it out of the pane's size
+        relocate(8, 8);
+
+        refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, e -> refresh()));
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    public void start() {
+        refreshTimeline.play();
+    }
+
+    public void stop() {
+        refreshTimeline.stop();
+    }
+
+    private void refresh() {
+        setText(String.format("frame  p50 %5.1f  p99 %5.1f  max %5.1f ms%n" +
+                              "physics p50 %5.2f  draw p50 %5.2f ms%n" +
+                              "fireworks %d  particles %d  off-screen %d  culled %d%n" +
+                              "launches/s %.2f  alloc/frame %d B%n" +
+                              "quality %s",
+                              metrics.getFrameTimeP50(), metrics.getFrameTimeP99(), metrics.getFrameTimeMax(),
+                              metrics.getPhysicsTimeP50(), metrics.getDrawTimeP50(),
+                              metrics.getLiveFireworks(), metrics.getLiveParticles(), metrics.getOffscreenParticles(), metrics.getCulledParticles(),
+                              metrics.getLaunchesPerSecond(), metrics.getAllocatedBytesPerFrame(),
+                              metrics.getQualityLevel()));
+    }
+}
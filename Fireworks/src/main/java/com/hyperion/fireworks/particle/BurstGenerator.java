@@ -0,0 +1,108 @@
+package com.hyperion.fireworks.particle;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Spawns the particles of an explosion. Burst directions are taken from precomputed sine and cosine tables instead of
+ * calling {@link Math#sin} and {@link Math#cos} per particle, and the particles are written straight into the
+ * {@link ParticleStore} after growing it once for the whole burst.
+ * <p>
+ * All randomness comes from the generator passed in, normally the firework's own {@link java.util.SplittableRandom}
+ * stream, so a burst is reproducible from the firework's seed. A BurstGenerator holds no mutable state and may be shared
+ * by any number of threads.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class BurstGenerator {
+    public static final int DEFAULT_ANGLE_STEPS = 4096; // Directions on the unit circle, about 0.09 degrees apart
+    public static final int RANDOM_PAINT        = -1; // Palette index that makes every particle pick its own paint
+
+    private final double[] cos;
+    private final double[] sin;
+
+    /**
+     * Constructs a BurstGenerator.
+     *
+     * @param angleSteps
+     *         The number of evenly spaced directions particles can fly in; higher values cost memory, not speed.
+     */
+    public BurstGenerator(int angleSteps) {
+        int steps = Math.max(1, angleSteps);
+        cos = new double[steps];
+        sin = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            double angle = 2 * Math.PI * i / steps;
+            cos[i] = Math.cos(angle);
+            sin[i] = Math.sin(angle);
+        }
+    }
+
+    /**
+     * @return The generator used by fireworks that were not given one, with {@value #DEFAULT_ANGLE_STEPS} directions.
+     */
+    public static BurstGenerator getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    public int getAngleSteps() {
+        return cos.length;
+    }
+
+    /**
+     * Appends a burst of particles flying away from a common origin in random directions.
+     *
+     * @param store
+     *         The store to append the particles to.
+     * @param random
+     *         The random number generator of the firework.
+     * @param count
+     *         The number of particles.
+     * @param x
+     *         The x position of the origin in pixels.
+     * @param y
+     *         The y position of the origin in pixels.
+     * @param minSpeed
+     *         The lowest speed, in pixels per frame.
+     * @param maxSpeed
+     *         The highest speed, in pixels per frame.
+     * @param minSize
+     *         The smallest particle size.
+     * @param maxSize
+     *         The largest particle size.
+     * @param paletteIndex
+     *         The paint of all particles, or {@link #RANDOM_PAINT} to pick one per particle from the store's palette.
+     * @param decayRate
+     *         The opacity lost per frame.
+     * @param flags
+     *         The behavior flags of the particle kind.
+     */
+    public void burst(ParticleStore store, RandomGenerator random, int count, double x, double y, double minSpeed, double maxSpeed, double minSize,
+                      double maxSize, int paletteIndex, double decayRate, int flags) {
+        burst(store, random, count, x, y, minSpeed, maxSpeed, minSize, maxSize, paletteIndex, decayRate, flags, null);
+    }
+
+    /**
+     * Appends a burst of particles that carry a sub-emitter, see
+     * {@link #burst(ParticleStore, RandomGenerator, int, double, double, double, double, double, double, int, double, int)}.
+     *
+     * @param subEmitter
+     *         The sub-emitter of every particle of the burst, or null for none.
+     */
+    public void burst(ParticleStore store, RandomGenerator random, int count, double x, double y, double minSpeed, double maxSpeed, double minSize,
+                      double maxSize, int paletteIndex, double decayRate, int flags, SubEmitter subEmitter) {
+        PaintPalette palette = store.getPalette();
+        store.ensureCapacity(store.size() + count);
+        for (int n = 0; n < count; n++) {
+            int    direction = random.nextInt(cos.length);
+            double speed     = minSpeed + random.nextDouble() * (maxSpeed - minSpeed);
+            double size      = minSize + random.nextDouble() * (maxSize - minSize);
+            int    paint     = paletteIndex == RANDOM_PAINT ? palette.nextIndex(random) : paletteIndex;
+            store.add(x, y, cos[direction] * speed, sin[direction] * speed, paint, size, decayRate, flags, subEmitter);
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final BurstGenerator DEFAULT = new BurstGenerator(DEFAULT_ANGLE_STEPS);
+    }
+}
@@ -16,4 +16,24 @@ public enum DecayFactor {
     public double getDecayRate() {
         return decayRate;
     }
+
+    /**
+     * @return The most steps a particle with this decay lives.
+     */
+    public int getLifetime() {
+        return lifetime(decayRate);
+    }
+
+    /**
+     * Works out the most steps a particle that loses the given opacity per step lives. Opacity is kept in single
+     * precision, so the result allows one step for rounding.
+     *
+     * @param decayRate
+     *         The opacity lost per step, above 0.
+     *
+     * @return The number of steps.
+     */
+    public static int lifetime(double decayRate) {
+        return (int) Math.ceil(1 / decayRate) + 1;
+    }
 }
@@ -0,0 +1,96 @@
+package com.hyperion.fireworks.particle;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A precomputed explosion: the velocities and sizes of a burst of particles, drawn once from the speed and size ranges of
+ * a style. Spawning a burst from a template copies its particles, turned by one random rotation and scaled by one random
+ * speed factor per burst, instead of drawing a direction, a speed and a size for every particle.
+ * <p>
+ * The particles of a template are in random order, so the first {@code n} of them are as evenly spread as the whole
+ * template; a burst shrunk by the quality level or the particle budget takes a prefix. Templates are immutable and may be
+ * shared by any number of threads.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class ExplosionTemplate {
+    private final float[] velocityX; // Pixels per frame
+    private final float[] velocityY;
+    private final float[] size;
+
+    /**
+     * Bakes a template.
+     *
+     * @param random
+     *         The random number generator the template is drawn from.
+     * @param particleCount
+     *         The number of particles.
+     * @param minSpeed
+     *         The lowest speed, in pixels per frame.
+     * @param maxSpeed
+     *         The highest speed, in pixels per frame.
+     * @param minSize
+     *         The smallest particle size.
+     * @param maxSize
+     *         The largest particle size.
+     */
+    public ExplosionTemplate(RandomGenerator random, int particleCount, double minSpeed, double maxSpeed, double minSize, double maxSize) {
+        int count = Math.max(1, particleCount);
+        velocityX = new float[count];
+        velocityY = new float[count];
+        size      = new float[count];
+        for (int i = 0; i < count; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed = minSpeed + random.nextDouble() * (maxSpeed - minSpeed);
+            velocityX[i] = (float) (Math.cos(angle) * speed);
+            velocityY[i] = (float) (Math.sin(angle) * speed);
+            size[i]      = (float) (minSize + random.nextDouble() * (maxSize - minSize));
+        }
+    }
+
+    public int size() {
+        return velocityX.length;
+    }
+
+    /**
+     * Appends a burst copied from this template.
+     *
+     * @param store
+     *         The store to append the particles to.
+     * @param random
+     *         The random number generator of the firework; drawn from a few times per burst, plus once per particle for
+     *         {@link BurstGenerator#RANDOM_PAINT}.
+     * @param count
+     *         The number of particles; bursts larger than the template repeat it.
+     * @param x
+     *         The x position of the origin in pixels.
+     * @param y
+     *         The y position of the origin in pixels.
+     * @param speedJitter
+     *         The largest fraction the speed of the whole burst is randomly scaled up or down by.
+     * @param paletteIndex
+     *         The paint of all particles, or {@link BurstGenerator#RANDOM_PAINT} to pick one per particle.
+     * @param decayRate
+     *         The opacity lost per frame.
+     * @param flags
+     *         The behavior flags of the particle kind.
+     * @param subEmitter
+     *         The sub-emitter of every particle, or null for none.
+     */
+    public void spawn(ParticleStore store, RandomGenerator random, int count, double x, double y, double speedJitter, int paletteIndex, double decayRate,
+                      int flags, SubEmitter subEmitter) {
+        PaintPalette palette  = store.getPalette();
+        double       rotation = random.nextDouble() * 2 * Math.PI;
+        double       scale    = 1 + speedJitter * (2 * random.nextDouble() - 1);
+        double       cos      = Math.cos(rotation) * scale;
+        double       sin      = Math.sin(rotation) * scale;
+        store.ensureCapacity(store.size() + count);
+        for (int n = 0; n < count; n++) {
+            int i     = n % velocityX.length;
+            int paint = paletteIndex == BurstGenerator.RANDOM_PAINT ? palette.nextIndex(random) : paletteIndex;
+            store.add(x, y, velocityX[i] * cos - velocityY[i] * sin, velocityX[i] * sin + velocityY[i] * cos, paint, size[i], decayRate, flags,
+                      subEmitter);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hyperion.fireworks.particle;
+
+import com.hyperion.paintrandomizer.PaintRandomizer;
+import javafx.scene.paint.Paint;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * A bounded set of pre-generated vibrant paints shared by all fireworks of a show. Particles and rockets refer to a paint
+ * by its palette index, so spawning an explosion no longer builds a new paint (often a gradient) per particle, and a
+ * particle costs an {@code int} instead of its own {@link Paint}.
+ * <p>
+ * So that the show does not look repetitive, the palette slowly rotates: every {@code refreshInterval} calls to
+ * {@link #advance()} the active slot that was refreshed longest ago is retired and replaced by a slot holding a freshly
+ * generated paint. A retired slot is handed out no more and is only regenerated after {@code retireSteps} steps, once
+ * every particle that may still refer to it has faded out; a live particle therefore never changes color.
+ * <p>
+ * {@link #nextIndex} and {@link #advance()} are meant for the stepping thread (or the threads it moves fireworks on),
+ * {@link #get(int)} may be called from any thread.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class PaintPalette {
+    private static final int DEFAULT_SIZE = 128;
+
+    private final PaintRandomizer paintRandomizer;
+    private final Paint[]         paints;
+    private final int[]           active; // Slots handed out
+    private final int[]           retired; // Slots waiting out their grace period, oldest at retiredHead
+    private final long[]          retiredAt;
+    private final int             refreshInterval;
+    private final int             retireSteps;
+
+    private int  retiredHead = 0;
+    private int  cursor      = 0; // Active position refreshed next
+    private long step        = 0;
+
+    /**
+     * Generates a palette that never rotates.
+     *
+     * @param size
+     *         The number of paints handed out.
+     */
+    public PaintPalette(int size) {
+        this(size, 0, 0);
+    }
+
+    /**
+     * Generates a rotating palette.
+     *
+     * @param size
+     *         The number of paints handed out at any time.
+     * @param refreshInterval
+     *         The number of steps between two paint replacements, 0 to never rotate.
+     * @param retireSteps
+     *         The number of steps a replaced paint stays reserved for the particles still using it; at least the longest
+     *         particle lifetime.
+     */
+    public PaintPalette(int size, int refreshInterval, int retireSteps) {
+        this(size, refreshInterval, retireSteps, new Random());
+    }
+
+    /**
+     * Generates a rotating palette whose paints all come from the given random number generator, so a seeded generator
+     * yields the same paints on every run.
+     *
+     * @param size
+     *         The number of paints handed out at any time.
+     * @param refreshInterval
+     *         The number of steps between two paint replacements, 0 to never rotate.
+     * @param retireSteps
+     *         The number of steps a replaced paint stays reserved for the particles still using it; at least the longest
+     *         particle lifetime.
+     * @param random
+     *         The random number generator the paints are drawn from.
+     */
+    public PaintPalette(int size, int refreshInterval, int retireSteps, Random random) {
+        PaintRandomizer.Builder builder = new PaintRandomizer.Builder();
+        builder.randomSupplier(() -> random)
+               .hue(() -> random.nextDouble() * 360)
+               .saturation(() -> random.nextDouble(0.7, 1))
+               .brightness(() -> random.nextDouble(0.7, 1))
+               .gradientStyle(() -> PaintRandomizer.GradientStyle.values()[random.nextInt(PaintRandomizer.GradientStyle.values().length)]);
+        this.paintRandomizer = builder.build();
+        this.refreshInterval = refreshInterval;
+        this.retireSteps     = retireSteps;
+
+        int activeSize  = Math.max(1, size);
+        int retiredSize = refreshInterval > 0 ? retireSteps / refreshInterval + 1 : 0;
+        this.paints    = new Paint[activeSize + retiredSize];
+        this.active    = new int[activeSize];
+        this.retired   = new int[retiredSize];
+        this.retiredAt = new long[retiredSize];
+        for (int slot = 0; slot < paints.length; slot++) {
+            paints[slot] = paintRandomizer.generateRandomVibrantPaint();
+        }
+        for (int i = 0; i < activeSize; i++) {
+            active[i] = i;
+        }
+        for (int i = 0; i < retiredSize; i++) {
+            retired[i]   = activeSize + i;
+            retiredAt[i] = Long.MIN_VALUE / 2; // Never used, so free to refresh right away
+        }
+    }
+
+    /**
+     * @return The palette used by fireworks and particle stores that were not given one.
+     */
+    public static PaintPalette getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Picks a random paint from the active part of the palette.
+     *
+     * @param random
+     *         The random number generator to pick with.
+     *
+     * @return The palette index of the paint.
+     */
+    public int nextIndex(RandomGenerator random) {
+        return active[random.nextInt(active.length)];
+    }
+
+    public Paint get(int index) {
+        return paints[index];
+    }
+
+    /**
+     * @return The number of paints handed out at any time.
+     */
+    public int size() {
+        return active.length;
+    }
+
+    /**
+     * Advances the palette by one simulation step, replacing the least recently refreshed paint when a refresh is due.
+     */
+    public void advance() {
+        step++;
+        if (refreshInterval <= 0 || step % refreshInterval != 0 || step - retiredAt[retiredHead] < retireSteps) {
+            return;
+        }
+        // The oldest retired slot gets a new paint and takes the place of the active slot at the cursor, which retires
+        int refreshed = retired[retiredHead];
+        paints[refreshed] = paintRandomizer.generateRandomVibrantPaint();
+
+        retired[retiredHead]   = active[cursor];
+        retiredAt[retiredHead] = step;
+        active[cursor]         = refreshed;
+        retiredHead            = (retiredHead + 1) % retired.length;
+        cursor                 = (cursor + 1) % active.length;
+    }
+
+    private static final class DefaultHolder {
+        private static final PaintPalette DEFAULT = new PaintPalette(DEFAULT_SIZE);
+    }
+}
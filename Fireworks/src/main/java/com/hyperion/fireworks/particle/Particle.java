@@ -1,40 +1,21 @@
 package com.hyperion.fireworks.particle;
 
-import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Paint;
+/**
+ * A Particle is the plain particle kind: it falls under gravity and fades out at its decay rate.
+ * The particle state itself lives in a {@link ParticleStore}; this class describes the kind.
+ *
+ * @version 2.0
+ * @author Colin Jokisch
+ */
+public final class Particle {
+    public static final int FLAGS = 0;
 
-public class Particle {
-    protected       double  opacity   = 1.0;
-    protected       double  decayRate;
-    protected       Point2D position;
-    protected       Point2D velocity;
-    protected       Paint   color;
-    protected       double  size;
-    protected final double  gravity;
+    static final double GRAVITY = 0.06; // Gravity in pixels per frame^2
 
-    public Particle(Point2D position, Point2D velocity, Paint color, double size, double decayRate) {
-        this.position = position;
-        this.color    = color;
-        this.size     = size;
-        this.velocity = velocity;
-        this.gravity  = 0.06;
-        this.decayRate = decayRate;
+    private Particle() {
     }
 
-    public boolean isDead() {
-        return opacity <= 0.0;
-    }
-
-    public void move() {
-        velocity = velocity.add(0, gravity);
-        position = position.add(velocity);
-        opacity -= decayRate;
-    }
-
-    public void draw(GraphicsContext gc) {
-        gc.setGlobalAlpha(Math.random() * opacity);  // Use the opacity
-        gc.setFill(color);
-        gc.fillOval(position.getX(), position.getY(), 5, 5);
+    public static void create(ParticleStore store, double x, double y, double velocityX, double velocityY, int paletteIndex, double size, double decayRate) {
+        store.add(x, y, velocityX, velocityY, paletteIndex, size, decayRate, FLAGS);
     }
 }
@@ -0,0 +1,552 @@
+package com.hyperion.fireworks.particle;
+
+import javafx.scene.paint.Paint;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.random.RandomGenerator;
+
+/**
+ * ParticleStore holds the particles of a firework as a structure-of-arrays: every particle attribute lives in its own
+ * primitive array and a particle is simply an index into those arrays. Live particles always occupy the contiguous range
+ * {@code [0, size())}; dead particles are removed with swap-remove compaction, so removal is O(1) per particle and no
+ * objects are created or discarded while a firework burns.
+ * <p>
+ * The particle kinds ({@link Particle}, {@link StrobeParticle}, {@link SparkleParticle}) are expressed as behavior flags
+ * stored next to the physical state, and the paint of a particle is an index into a shared {@link PaintPalette}. Slots
+ * are recycled: {@link #add} fully resets the slot it writes and {@link #clear()} keeps the arrays, so a store that is
+ * reused with its firework stops allocating once it reaches its high-water mark.
+ * <p>
+ * Particles may carry a {@link SubEmitter}. The frame it fires on is worked out when the particle is added and the
+ * particle is put on a min-heap of pending emissions ordered by that frame, which compaction keeps up to date as it moves
+ * particles; {@link #emit} pops only the emissions that are due, so its cost follows the particles that spawn rather than
+ * the particles that live.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class ParticleStore {
+    public static final int FLAG_STROBE    = 1;      // Particle blinks at random intervals
+    public static final int FLAG_SPARKLE   = 1 << 1; // Particle of the sparkle kind, see SparkleParticle
+    public static final int FLAG_HIDDEN    = 1 << 2; // Strobe particle is currently blinked out
+    public static final int FLAG_OFFSCREEN = 1 << 3; // Particle lies outside the viewport and is not drawn
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private double[] x;
+    private double[] y;
+    private double[] velocityX;
+    private double[] velocityY;
+    private float[]  opacity;
+    private float[]  decayRate;
+    private float[]  size;
+    private int[]    paletteIndex;
+    private int[]    flags;
+    private int      count;
+    private int      offscreenCount;
+
+    private SubEmitter[] subEmitter;
+    private int[]        emitFrame; // Frame the particle's sub-emitter fires on next
+    private int[]        emitSlot; // Position of the particle in the emission heap, -1 when nothing is pending
+    private int[]        emitHeap; // Indices of the particles with a pending emission, soonest first
+    private int          emitCount = 0;
+    private int          frame     = 0; // Moves since the store was cleared
+
+    private PaintPalette palette = PaintPalette.getDefault();
+
+    /**
+     * Constructs an empty ParticleStore with a default initial capacity.
+     */
+    public ParticleStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ParticleStore.
+     *
+     * @param initialCapacity
+     *         The number of particles the store can hold before it has to grow.
+     */
+    public ParticleStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        x            = new double[capacity];
+        y            = new double[capacity];
+        velocityX    = new double[capacity];
+        velocityY    = new double[capacity];
+        opacity      = new float[capacity];
+        decayRate    = new float[capacity];
+        size         = new float[capacity];
+        paletteIndex = new int[capacity];
+        flags        = new int[capacity];
+        subEmitter   = new SubEmitter[capacity];
+        emitFrame    = new int[capacity];
+        emitSlot     = new int[capacity];
+        emitHeap     = new int[capacity];
+    }
+
+    /**
+     * Sets the palette the particles' palette indices refer to. Change it only while the store is empty.
+     */
+    public void setPalette(PaintPalette palette) {
+        this.palette = palette;
+    }
+
+    public PaintPalette getPalette() {
+        return palette;
+    }
+
+    /**
+     * Appends a particle to the store.
+     *
+     * @param x
+     *         The x position in pixels.
+     * @param y
+     *         The y position in pixels.
+     * @param velocityX
+     *         The horizontal velocity in pixels per frame.
+     * @param velocityY
+     *         The vertical velocity in pixels per frame.
+     * @param paletteIndex
+     *         The index of the particle's paint in the store's {@link PaintPalette}.
+     * @param size
+     *         The size of the particle.
+     * @param decayRate
+     *         The opacity lost per frame.
+     * @param flags
+     *         The behavior flags of the particle kind.
+     *
+     * @return The index of the new particle.
+     */
+    public int add(double x, double y, double velocityX, double velocityY, int paletteIndex, double size, double decayRate, int flags) {
+        return add(x, y, velocityX, velocityY, paletteIndex, size, decayRate, flags, null);
+    }
+
+    /**
+     * Appends a particle that spawns more particles later in its life, see
+     * {@link #add(double, double, double, double, int, double, double, int)}.
+     *
+     * @param subEmitter
+     *         The sub-emitter of the particle, or null for none.
+     *
+     * @return The index of the new particle.
+     */
+    public int add(double x, double y, double velocityX, double velocityY, int paletteIndex, double size, double decayRate, int flags,
+                   SubEmitter subEmitter) {
+        if (count == this.x.length) {
+            grow(count * 2);
+        }
+        int i = count++;
+        this.x[i]            = x;
+        this.y[i]            = y;
+        this.velocityX[i]    = velocityX;
+        this.velocityY[i]    = velocityY;
+        this.opacity[i]      = 1.0f;
+        this.decayRate[i]    = (float) decayRate;
+        this.size[i]         = (float) size;
+        this.paletteIndex[i] = paletteIndex;
+        this.flags[i]        = flags;
+        this.subEmitter[i]   = subEmitter;
+        this.emitSlot[i]     = -1;
+        if (subEmitter != null) {
+            int delay = subEmitter.firstDelay(decayRate);
+            if (delay > 0) {
+                schedule(i, frame + delay);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Makes room for the given number of particles, so a burst of that size grows the store at most once.
+     *
+     * @param capacity
+     *         The number of particles the store must be able to hold.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            grow(Math.max(capacity, x.length * 2));
+        }
+    }
+
+    /**
+     * Advances every particle by one frame: applies gravity, moves it by its velocity, fades it by its decay rate and
+     * toggles the visibility of strobe particles.
+     *
+     * @param random
+     *         The random number generator that decides when strobe particles blink.
+     */
+    public void move(RandomGenerator random) {
+        frame++;
+        for (int i = 0; i < count; i++) {
+            velocityY[i] += Particle.GRAVITY;
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+            opacity[i] -= decayRate[i];
+            // Blinking effect: Randomly toggle visibility
+            if ((flags[i] & FLAG_STROBE) != 0 && random.nextDouble() < StrobeParticle.BLINK_RATE) {
+                flags[i] ^= FLAG_HIDDEN;
+            }
+        }
+    }
+
+    /**
+     * Fires the sub-emitters that are due after the last {@link #move}. The spawned particles are appended to the store;
+     * repeating sub-emitters are scheduled again while their particle lives.
+     *
+     * @param burstGenerator
+     *         The generator that spawns the particles.
+     * @param random
+     *         The random number generator of the firework.
+     * @param claim
+     *         Given the number of particles a sub-emitter wants, returns the number it may spawn, for instance from a
+     *         particle budget.
+     *
+     * @return The number of sub-emitters fired.
+     */
+    public int emit(BurstGenerator burstGenerator, RandomGenerator random, IntUnaryOperator claim) {
+        int fired = 0;
+        while (emitCount > 0 && emitFrame[emitHeap[0]] <= frame) {
+            int i = emitHeap[0];
+            removeEmission(0);
+            if (opacity[i] <= 0.0f) {
+                continue; // Faded or culled before its time came
+            }
+            SubEmitter emitter = subEmitter[i];
+            emitter.emit(this, i, claim.applyAsInt(emitter.getParticleCount()), burstGenerator, random);
+            fired++;
+            int repeat = emitter.repeatDelay();
+            if (repeat > 0 && opacity[i] > repeat * decayRate[i]) {
+                schedule(i, frame + repeat);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * @return The number of particles waiting for their sub-emitter to fire.
+     */
+    public int getPendingEmissionCount() {
+        return emitCount;
+    }
+
+    /**
+     * Retires the particles that can never be seen again and marks the ones outside the given bounds as off-screen, so
+     * renderers skip them. Gravity only pulls particles down and their horizontal velocity never changes, so a particle
+     * below the bounds that is not rising, or beside them and moving away, can never come back. Particles above the
+     * bounds fall back in and are only hidden. Particles with a pending sub-emitter are kept until it fires, as what they
+     * spawn may fly back into view.
+     *
+     * @param minX
+     *         The left edge of the visible area.
+     * @param minY
+     *         The top edge of the visible area.
+     * @param maxX
+     *         The right edge of the visible area.
+     * @param maxY
+     *         The bottom edge of the visible area.
+     *
+     * @return The number of particles retired; they are removed on the next {@link #compact()}.
+     */
+    public int cull(double minX, double minY, double maxX, double maxY) {
+        int retired   = 0;
+        int offscreen = 0;
+        for (int i = 0; i < count; i++) {
+            if (opacity[i] <= 0.0f) {
+                continue;
+            }
+            boolean outside = x[i] < minX || x[i] > maxX || y[i] < minY || y[i] > maxY;
+            if (!outside) {
+                flags[i] &= ~FLAG_OFFSCREEN;
+            } else if (emitSlot[i] < 0
+                       && (y[i] > maxY && velocityY[i] >= 0 || x[i] > maxX && velocityX[i] >= 0 || x[i] < minX && velocityX[i] <= 0)) {
+                opacity[i] = 0.0f;
+                retired++;
+            } else {
+                flags[i] |= FLAG_OFFSCREEN;
+                offscreen++;
+            }
+        }
+        offscreenCount = offscreen;
+        return retired;
+    }
+
+    /**
+     * @return The number of particles the last {@link #cull} found off-screen but able to come back.
+     */
+    public int getOffscreenCount() {
+        return offscreenCount;
+    }
+
+    /**
+     * Removes dead particles by moving the last live particle into each freed slot.
+     */
+    public void compact() {
+        int i = 0;
+        while (i < count) {
+            if (opacity[i] <= 0.0f) {
+                if (emitSlot[i] >= 0) {
+                    removeEmission(emitSlot[i]);
+                }
+                count--;
+                if (i != count) {
+                    copy(count, i);
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Drops the particles added last, for instance the part of a burst the particle budget could not take.
+     *
+     * @param size
+     *         The number of particles to keep.
+     */
+    public void truncate(int size) {
+        for (int i = Math.max(0, size); i < count; i++) {
+            if (emitSlot[i] >= 0) {
+                removeEmission(emitSlot[i]);
+            }
+        }
+        count = Math.max(0, Math.min(size, count));
+    }
+
+    /**
+     * Marks a particle as dead; it is removed on the next {@link #compact()}.
+     *
+     * @param i
+     *         The particle index.
+     */
+    public void kill(int i) {
+        opacity[i] = 0.0f;
+    }
+
+    public boolean isDead(int i) {
+        return opacity[i] <= 0.0f;
+    }
+
+    /**
+     * @return true if no particle in the store is alive.
+     */
+    public boolean allDead() {
+        for (int i = 0; i < count; i++) {
+            if (opacity[i] > 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the contents of this store with a copy of another store, growing this store if needed. The copy includes
+     * the pending sub-emitter firings and the frame count, so a copy that is moved on spawns exactly what the original
+     * would. Once this store is large enough the copy does not allocate.
+     *
+     * @param other
+     *         The store to copy.
+     */
+    public void copyFrom(ParticleStore other) {
+        ensureCapacity(other.count);
+        int n = other.count;
+        System.arraycopy(other.x, 0, x, 0, n);
+        System.arraycopy(other.y, 0, y, 0, n);
+        System.arraycopy(other.velocityX, 0, velocityX, 0, n);
+        System.arraycopy(other.velocityY, 0, velocityY, 0, n);
+        System.arraycopy(other.opacity, 0, opacity, 0, n);
+        System.arraycopy(other.decayRate, 0, decayRate, 0, n);
+        System.arraycopy(other.size, 0, size, 0, n);
+        System.arraycopy(other.paletteIndex, 0, paletteIndex, 0, n);
+        System.arraycopy(other.flags, 0, flags, 0, n);
+        System.arraycopy(other.subEmitter, 0, subEmitter, 0, n);
+        System.arraycopy(other.emitFrame, 0, emitFrame, 0, n);
+        System.arraycopy(other.emitSlot, 0, emitSlot, 0, n);
+        System.arraycopy(other.emitHeap, 0, emitHeap, 0, other.emitCount);
+        count          = n;
+        offscreenCount = other.offscreenCount;
+        emitCount      = other.emitCount;
+        frame          = other.frame;
+        palette        = other.palette;
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public void clear() {
+        count          = 0;
+        offscreenCount = 0;
+        emitCount      = 0;
+        frame          = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The number of particle slots allocated; slots are reused across {@link #clear()} so this is the store's
+     * high-water mark.
+     */
+    public int getCapacity() {
+        return x.length;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return false while a strobe particle is blinked out or the particle was culled as off-screen.
+     */
+    public boolean isVisible(int i) {
+        return (flags[i] & (FLAG_HIDDEN | FLAG_OFFSCREEN)) == 0;
+    }
+
+    public boolean hasFlag(int i, int flag) {
+        return (flags[i] & flag) != 0;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the x position between the previous and the current step. Particles move by their velocity once per step,
+     * so the previous position is the current one minus the velocity.
+     *
+     * @param i
+     *         The particle index.
+     * @param interpolation
+     *         0 for the previous step, 1 for the current step.
+     */
+    public double getInterpolatedX(int i, double interpolation) {
+        return x[i] - velocityX[i] * (1 - interpolation);
+    }
+
+    /**
+     * Returns the y position between the previous and the current step.
+     *
+     * @param i
+     *         The particle index.
+     * @param interpolation
+     *         0 for the previous step, 1 for the current step.
+     */
+    public double getInterpolatedY(int i, double interpolation) {
+        return y[i] - velocityY[i] * (1 - interpolation);
+    }
+
+    public double getVelocityX(int i) {
+        return velocityX[i];
+    }
+
+    public double getVelocityY(int i) {
+        return velocityY[i];
+    }
+
+    public double getOpacity(int i) {
+        return opacity[i];
+    }
+
+    public double getSize(int i) {
+        return size[i];
+    }
+
+    public int getPaletteIndex(int i) {
+        return paletteIndex[i];
+    }
+
+    public Paint getPaint(int i) {
+        return palette.get(paletteIndex[i]);
+    }
+
+    private void copy(int from, int to) {
+        x[to]            = x[from];
+        y[to]            = y[from];
+        velocityX[to]    = velocityX[from];
+        velocityY[to]    = velocityY[from];
+        opacity[to]      = opacity[from];
+        decayRate[to]    = decayRate[from];
+        size[to]         = size[from];
+        paletteIndex[to] = paletteIndex[from];
+        flags[to]        = flags[from];
+        subEmitter[to]   = subEmitter[from];
+        emitFrame[to]    = emitFrame[from];
+        emitSlot[to]     = emitSlot[from];
+        if (emitSlot[to] >= 0) {
+            emitHeap[emitSlot[to]] = to;
+        }
+    }
+
+    private void schedule(int i, int dueFrame) {
+        emitFrame[i] = dueFrame;
+        place(i, emitCount);
+        siftUp(emitCount++);
+    }
+
+    private void removeEmission(int slot) {
+        emitSlot[emitHeap[slot]] = -1;
+        emitCount--;
+        if (slot != emitCount) {
+            place(emitHeap[emitCount], slot);
+            siftDown(slot);
+            siftUp(slot);
+        }
+    }
+
+    private void siftUp(int slot) {
+        int i = emitHeap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (emitFrame[emitHeap[parent]] <= emitFrame[i]) {
+                break;
+            }
+            place(emitHeap[parent], slot);
+            slot = parent;
+        }
+        place(i, slot);
+    }
+
+    private void siftDown(int slot) {
+        int i = emitHeap[slot];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= emitCount) {
+                break;
+            }
+            if (child + 1 < emitCount && emitFrame[emitHeap[child + 1]] < emitFrame[emitHeap[child]]) {
+                child++;
+            }
+            if (emitFrame[emitHeap[child]] >= emitFrame[i]) {
+                break;
+            }
+            place(emitHeap[child], slot);
+            slot = child;
+        }
+        place(i, slot);
+    }
+
+    private void place(int i, int slot) {
+        emitHeap[slot] = i;
+        emitSlot[i]    = slot;
+    }
+
+    private void grow(int capacity) {
+        x            = Arrays.copyOf(x, capacity);
+        y            = Arrays.copyOf(y, capacity);
+        velocityX    = Arrays.copyOf(velocityX, capacity);
+        velocityY    = Arrays.copyOf(velocityY, capacity);
+        opacity      = Arrays.copyOf(opacity, capacity);
+        decayRate    = Arrays.copyOf(decayRate, capacity);
+        size         = Arrays.copyOf(size, capacity);
+        paletteIndex = Arrays.copyOf(paletteIndex, capacity);
+        flags        = Arrays.copyOf(flags, capacity);
+        subEmitter   = Arrays.copyOf(subEmitter, capacity);
+        emitFrame    = Arrays.copyOf(emitFrame, capacity);
+        emitSlot     = Arrays.copyOf(emitSlot, capacity);
+        emitHeap     = Arrays.copyOf(emitHeap, capacity);
+    }
+}
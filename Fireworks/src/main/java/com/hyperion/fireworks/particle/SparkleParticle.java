@@ -1,44 +1,37 @@
 package com.hyperion.fireworks.particle;
 
-import javafx.geometry.Point2D;
-import javafx.scene.paint.Paint;
-
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-public class SparkleParticle extends Particle{
-    private boolean secondExplosion = false;
-
-    public SparkleParticle(Point2D position, Point2D velocity, Paint color, double size, double decayRate) {
-        super(position, velocity, color, size, decayRate);
-    }
-
-    @Override
-    public boolean isDead() {
-        return opacity <= 0.0 || secondExplosion;
-    }
-
-    @Override
-    public void move() {
-        super.move();
-        // Add extra sparkle-specific behavior, such as secondary mini-explosions
-        if (opacity < .5) {
-            // Create secondary mini-explosions
-            secondExplosion = true;
-        }
-    }
-
-    public List<Particle> explode() {
-        return Stream.generate(() -> {
-            double angle = Math.random() * 2 * Math.PI;
-            double speed = 0.5 + Math.random() * 2;
-            Point2D newVelocity = new Point2D(Math.cos(angle) * speed, -Math.sin(angle) * speed);
-            return new Particle(position, newVelocity, color, size, DecayFactor.SLOW.getDecayRate());
-        }).limit(10).collect(Collectors.toList());
+/**
+ * A SparkleParticle behaves like a {@link Particle} until it has faded to half its opacity, at which point it bursts into
+ * a secondary mini-explosion of plain particles and dies. The burst is a {@link SubEmitter}, fired by
+ * {@link ParticleStore#emit} on the frame it is due.
+ *
+ * @version 3.0
+ * @author Colin Jokisch
+ */
+public final class SparkleParticle {
+    public static final int FLAGS = ParticleStore.FLAG_SPARKLE;
+
+    public static final int EXPLOSION_PARTICLES = 10; // Number of particles in the secondary explosion
+
+    private static final double EXPLOSION_OPACITY   = 0.5; // Opacity below which the secondary explosion happens
+    private static final double EXPLOSION_MIN_SPEED = 0.5;
+    private static final double EXPLOSION_MAX_SPEED = 2.5;
+
+    /**
+     * The secondary mini-explosion.
+     */
+    public static final SubEmitter SUB_EMITTER = new SubEmitter.Builder().atOpacity(EXPLOSION_OPACITY)
+                                                                         .particleCount(EXPLOSION_PARTICLES)
+                                                                         .speed(EXPLOSION_MIN_SPEED, EXPLOSION_MAX_SPEED)
+                                                                         .decayFactor(DecayFactor.SLOW)
+                                                                         .flags(Particle.FLAGS)
+                                                                         .killsParent(true)
+                                                                         .build();
+
+    private SparkleParticle() {
     }
 
-    public boolean getSecondExplosion() {
-        return secondExplosion;
+    public static void create(ParticleStore store, double x, double y, double velocityX, double velocityY, int paletteIndex, double size, double decayRate) {
+        store.add(x, y, velocityX, velocityY, paletteIndex, size, decayRate, FLAGS, SUB_EMITTER);
     }
 }
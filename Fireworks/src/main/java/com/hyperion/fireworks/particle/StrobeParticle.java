@@ -1,34 +1,21 @@
 package com.hyperion.fireworks.particle;
 
-import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Paint;
-
 /**
  * A StrobeParticle represents a single blinking particle of a strobe firework.
- * It extends the Particle class with the ability to blink at random intervals.
+ * It behaves like a {@link Particle} but toggles its visibility at random intervals.
  *
- * @version 1.0
+ * @version 2.0
  * @author Colin Jokisch
  */
-public class StrobeParticle extends Particle {
-    private static final double BLINK_RATE = 0.2; // Probability of blinking
-    private boolean isVisible = true; // Initial visibility
+public final class StrobeParticle {
+    public static final int FLAGS = ParticleStore.FLAG_STROBE;
 
-    public StrobeParticle(Point2D position, Point2D velocity, Paint color, double size, double decayRate) {
-        super(position, velocity, color, size, decayRate);
-    }
+    static final double BLINK_RATE = 0.2; // Probability of blinking
 
-    @Override
-    public void draw(GraphicsContext gc) {
-        // Blinking effect: Randomly toggle visibility
-        if (Math.random() < BLINK_RATE) {
-            isVisible = !isVisible;
-        }
+    private StrobeParticle() {
+    }
 
-        // Only draw the particle if it's currently visible
-        if (isVisible) {
-            super.draw(gc);
-        }
+    public static void create(ParticleStore store, double x, double y, double velocityX, double velocityY, int paletteIndex, double size, double decayRate) {
+        store.add(x, y, velocityX, velocityY, paletteIndex, size, decayRate, FLAGS);
     }
 }
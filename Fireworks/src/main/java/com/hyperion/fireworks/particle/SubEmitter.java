@@ -0,0 +1,226 @@
+package com.hyperion.fireworks.particle;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Describes the particles a particle spawns later in its life: the secondary burst of a sparkle, the crackle of a
+ * crackling star, the next stage of a multi-stage shell. A sub-emitter is attached to particles when they are added to a
+ * {@link ParticleStore}, which works out the frame its trigger fires on right away, so that
+ * {@link ParticleStore#emit} only ever touches the particles that actually spawn.
+ * <p>
+ * Triggers:
+ * <ul>
+ *     <li>{@link Trigger#OPACITY}: once, when the particle has faded below a threshold;</li>
+ *     <li>{@link Trigger#AGE}: once, when the particle is a number of frames old;</li>
+ *     <li>{@link Trigger#INTERVAL}: every number of frames for as long as the particle lives.</li>
+ * </ul>
+ * The spawned particles burst from the parent's position with its paint and a share of its size, and may carry a
+ * sub-emitter of their own for effects with more than two stages. Sub-emitters are immutable and shared by every particle
+ * they are attached to.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class SubEmitter {
+    /**
+     * What makes a sub-emitter fire.
+     */
+    public enum Trigger {
+        OPACITY,
+        AGE,
+        INTERVAL
+    }
+
+    private final Trigger    trigger;
+    private final double     opacity; // Threshold of an OPACITY trigger
+    private final int        frames; // Age of an AGE trigger, period of an INTERVAL trigger
+    private final int        particleCount;
+    private final double     minSpeed;
+    private final double     maxSpeed;
+    private final double     sizeScale;
+    private final double     decayRate;
+    private final int        flags;
+    private final SubEmitter next; // Sub-emitter of the spawned particles, null for none
+    private final boolean    killsParent;
+
+    private SubEmitter(Builder builder) {
+        trigger       = builder.trigger;
+        opacity       = builder.opacity;
+        frames        = Math.max(1, builder.frames);
+        particleCount = builder.particleCount;
+        minSpeed      = builder.minSpeed;
+        maxSpeed      = builder.maxSpeed;
+        sizeScale     = builder.sizeScale;
+        decayRate     = builder.decayFactor.getDecayRate();
+        flags         = builder.flags;
+        next          = builder.next;
+        killsParent   = builder.killsParent;
+    }
+
+    /**
+     * Works out how many frames after it is added a particle fires this sub-emitter for the first time.
+     *
+     * @param particleDecayRate
+     *         The opacity the particle loses per frame.
+     *
+     * @return The number of frames, or -1 if the particle fades out first.
+     */
+    int firstDelay(double particleDecayRate) {
+        int lifetime = particleDecayRate > 0 ? (int) Math.ceil(1 / particleDecayRate) : Integer.MAX_VALUE;
+        int delay = switch (trigger) {
+            // Opacity falls linearly from 1, so the frame it first drops below the threshold is known at spawn time
+            case OPACITY -> particleDecayRate > 0 ? (int) Math.floor((1 - opacity) / particleDecayRate) + 1 : -1;
+            case AGE, INTERVAL -> frames;
+        };
+        return delay > 0 && delay < lifetime ? delay : -1;
+    }
+
+    /**
+     * @return The number of frames until the next firing of a repeating sub-emitter, or -1 if it fires only once.
+     */
+    int repeatDelay() {
+        return trigger == Trigger.INTERVAL ? frames : -1;
+    }
+
+    /**
+     * Spawns the particles of this sub-emitter from a parent particle and kills the parent if this sub-emitter ends it.
+     *
+     * @param store
+     *         The store holding the parent; the new particles are appended to it.
+     * @param parent
+     *         The index of the parent particle.
+     * @param count
+     *         The number of particles to spawn, at most {@link #getParticleCount()} when the burst had to shrink.
+     * @param burstGenerator
+     *         The generator that spawns the particles.
+     * @param random
+     *         The random number generator of the firework.
+     */
+    void emit(ParticleStore store, int parent, int count, BurstGenerator burstGenerator, RandomGenerator random) {
+        double size = store.getSize(parent) * sizeScale;
+        burstGenerator.burst(store, random, count, store.getX(parent), store.getY(parent), minSpeed, maxSpeed, size, size, store.getPaletteIndex(parent),
+                             decayRate, flags, next);
+        if (killsParent) {
+            store.kill(parent);
+        }
+    }
+
+    /**
+     * @return The most steps the particles of this sub-emitter, and the particles they spawn in turn, live after it fires.
+     * They keep the paint of the particle that spawned them, so this is how long that paint stays in use on top of the
+     * parent's own lifetime.
+     */
+    public int getLifetime() {
+        return DecayFactor.lifetime(decayRate) + (next != null ? next.getLifetime() : 0);
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    /**
+     * @return True if the parent particle dies when this sub-emitter fires.
+     */
+    public boolean killsParent() {
+        return killsParent;
+    }
+
+    // Builder inner class
+    @SuppressWarnings({"unused", "UnusedReturnValue"})
+    public static class Builder {
+        private Trigger     trigger       = Trigger.OPACITY;
+        private double      opacity       = 0.5; // fades to half its opacity
+        private int         frames        = 30;
+        private int         particleCount = 10;
+        private double      minSpeed      = 0.5; // pixels per frame
+        private double      maxSpeed      = 2.5;
+        private double      sizeScale     = 1.0; // share of the parent's size
+        private DecayFactor decayFactor   = DecayFactor.SLOW;
+        private int         flags         = Particle.FLAGS;
+        private SubEmitter  next          = null;
+        private boolean     killsParent   = true;
+
+        /**
+         * Fires once, when the particle has faded below the given opacity.
+         */
+        public Builder atOpacity(double opacity) {
+            this.trigger = Trigger.OPACITY;
+            this.opacity = opacity;
+            return this;
+        }
+
+        /**
+         * Fires once, when the particle is the given number of frames old.
+         */
+        public Builder atAge(int frames) {
+            this.trigger = Trigger.AGE;
+            this.frames  = frames;
+            return this;
+        }
+
+        /**
+         * Fires every given number of frames for as long as the particle lives. The parent is kept alive unless
+         * {@link #killsParent(boolean)} says otherwise.
+         */
+        public Builder every(int frames) {
+            this.trigger     = Trigger.INTERVAL;
+            this.frames      = frames;
+            this.killsParent = false;
+            return this;
+        }
+
+        public Builder particleCount(int particleCount) {
+            this.particleCount = particleCount;
+            return this;
+        }
+
+        public Builder speed(double minSpeed, double maxSpeed) {
+            this.minSpeed = minSpeed;
+            this.maxSpeed = maxSpeed;
+            return this;
+        }
+
+        /**
+         * Sets the size of the spawned particles as a share of the parent's size.
+         */
+        public Builder sizeScale(double sizeScale) {
+            this.sizeScale = sizeScale;
+            return this;
+        }
+
+        public Builder decayFactor(DecayFactor decayFactor) {
+            this.decayFactor = decayFactor;
+            return this;
+        }
+
+        /**
+         * Sets the behavior flags of the spawned particles' kind.
+         */
+        public Builder flags(int flags) {
+            this.flags = flags;
+            return this;
+        }
+
+        /**
+         * Attaches a sub-emitter to the spawned particles, for effects with more stages.
+         */
+        public Builder next(SubEmitter next) {
+            this.next = next;
+            return this;
+        }
+
+        public Builder killsParent(boolean killsParent) {
+            this.killsParent = killsParent;
+            return this;
+        }
+
+        // build method
+        public SubEmitter build() {
+            return new SubEmitter(this);
+        }
+    }
+}
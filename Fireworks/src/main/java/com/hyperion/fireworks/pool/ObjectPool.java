@@ -0,0 +1,94 @@
+package com.hyperion.fireworks.pool;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable objects. Released objects are kept up to the pool's capacity and handed out again by
+ * {@link #acquire()} after being reset; when the pool is empty a new object is created by the factory.
+ * <p>
+ * The pool is not thread-safe and is meant to be used from the thread that drives the simulation.
+ *
+ * @param <T>
+ *         The type of the pooled objects.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class ObjectPool<T> {
+    private final Deque<T>              free;
+    private final int                   capacity;
+    private final Supplier<? extends T> factory;
+    private final Consumer<? super T>   resetter;
+
+    private long hits          = 0;
+    private long misses        = 0;
+    private long dropped       = 0;
+    private int  inUse         = 0;
+    private int  highWaterMark = 0;
+
+    /**
+     * Constructs an empty ObjectPool.
+     *
+     * @param capacity
+     *         The maximum number of idle objects kept for reuse.
+     * @param factory
+     *         Creates a new object when the pool is empty.
+     * @param resetter
+     *         Resets a recycled object before it is handed out again.
+     */
+    public ObjectPool(int capacity, Supplier<? extends T> factory, Consumer<? super T> resetter) {
+        this.capacity = capacity;
+        this.factory  = factory;
+        this.resetter = resetter;
+        this.free     = new ArrayDeque<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Hands out a recycled object, reset to a fresh state, or a new one if no idle object is available.
+     */
+    public T acquire() {
+        T object = free.pollLast();
+        if (object != null) {
+            hits++;
+            resetter.accept(object);
+        } else {
+            misses++;
+            object = factory.get();
+        }
+        inUse++;
+        highWaterMark = Math.max(highWaterMark, inUse);
+        return object;
+    }
+
+    /**
+     * Creates idle objects until the pool holds its capacity, so that the next acquisitions recycle instead of allocating.
+     * Prefilled objects do not count as misses.
+     */
+    public void prefill() {
+        while (free.size() < capacity) {
+            free.addLast(factory.get());
+        }
+    }
+
+    /**
+     * Returns an object to the pool.
+     *
+     * @return true if the object was kept for reuse, false if the pool was full and the object was dropped.
+     */
+    public boolean release(T object) {
+        inUse = Math.max(0, inUse - 1);
+        if (free.size() < capacity) {
+            free.addLast(object);
+            return true;
+        }
+        dropped++;
+        return false;
+    }
+
+    public PoolStatistics getStatistics() {
+        return new PoolStatistics(hits, misses, dropped, inUse, free.size(), highWaterMark);
+    }
+}
@@ -0,0 +1,30 @@
+package com.hyperion.fireworks.pool;
+
+/**
+ * A snapshot of the counters of an {@link ObjectPool}.
+ *
+ * @param hits
+ *         Number of acquisitions served by a recycled object.
+ * @param misses
+ *         Number of acquisitions that had to create a new object.
+ * @param dropped
+ *         Number of released objects discarded because the pool was full.
+ * @param inUse
+ *         Number of objects currently handed out.
+ * @param available
+ *         Number of idle objects waiting for reuse.
+ * @param highWaterMark
+ *         The largest number of objects handed out at the same time.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public record PoolStatistics(long hits, long misses, long dropped, int inUse, int available, int highWaterMark) {
+    /**
+     * @return The fraction of acquisitions served from the pool, or 0 if nothing has been acquired yet.
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
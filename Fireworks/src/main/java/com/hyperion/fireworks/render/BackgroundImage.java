@@ -0,0 +1,232 @@
+package com.hyperion.fireworks.render;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.util.Duration;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The image behind the fireworks, loaded lazily and off the FX thread. The image is decoded in the background straight to
+ * the size it is shown at rather than at its full resolution, and the view stays empty, showing whatever is behind it,
+ * until the decode finishes. When the bound size changes the image is decoded again at the new size once the size has
+ * settled; the old image stays up until then.
+ * <p>
+ * The image keeps its aspect ratio: it covers the whole area and the middle of it is shown, cropping whatever sticks out
+ * on two sides. The first decode of a URL fits the image into the area, since its shape is not known yet; once it is,
+ * the image is decoded again at the size that covers the area.
+ * <p>
+ * Decoded images are kept in a process-wide cache keyed by URL and size, so any number of displays showing the same
+ * background at the same size share one image. An entry is dropped as soon as no display shows or awaits its image any
+ * more, and the cache holds its images softly, so the entries of displays that were discarded without moving on are
+ * dropped under memory pressure.
+ *
+ * @author Colin Jokisch
+ * @version 1.1
+ */
+public final class BackgroundImage {
+    private static final Map<Key, Entry>       CACHE         = new HashMap<>(); // Guarded by the class
+    private static final ReferenceQueue<Image> CLEARED       = new ReferenceQueue<>();
+    private static final Map<String, Double>   ASPECT_RATIOS = new ConcurrentHashMap<>(); // Width over height, by URL
+    private static final int                   SIZE_STEP     = 64; // Decoded sizes are rounded up to this many pixels
+
+    private final String                 url;
+    private final ReadOnlyDoubleProperty width;
+    private final ReadOnlyDoubleProperty height;
+    private final ImageView              view         = new ImageView();
+    private final PauseTransition        resizeDelay;
+    private final ChangeListener<Number> loadListener = (observable, oldProgress, newProgress) -> loaded();
+
+    private Entry shown        = null; // Entry of the image in the view, null until the first decode finished
+    private Entry pending      = null; // Entry of the image still decoding, null when none
+    private Image pendingImage = null; // Holds the decoding image, which the cache only holds softly
+
+    /**
+     * Constructs a BackgroundImage and starts decoding it at the current size.
+     *
+     * @param url
+     *         The URL of the image.
+     * @param width
+     *         The width to show the image at.
+     * @param height
+     *         The height to show the image at.
+     * @param resizeDelay
+     *         How long the size has to stay unchanged before the image is decoded again at the new size.
+     */
+    public BackgroundImage(String url, ReadOnlyDoubleProperty width, ReadOnlyDoubleProperty height, Duration resizeDelay) {
+        this.url         = url;
+        this.width       = width;
+        this.height      = height;
+        this.resizeDelay = new PauseTransition(resizeDelay);
+        this.resizeDelay.setOnFinished(e -> request());
+
+        view.fitWidthProperty().bind(width);
+        view.fitHeightProperty().bind(height);
+        InvalidationListener resized = observable -> {
+            crop(); // Keeps the current image undistorted until the new one is decoded
+            this.resizeDelay.playFromStart();
+        };
+        width.addListener(resized);
+        height.addListener(resized);
+        request();
+    }
+
+    public ImageView getView() {
+        return view;
+    }
+
+    private void request() {
+        double areaWidth  = Math.max(1, width.get());
+        double areaHeight = Math.max(1, height.get());
+        Double ratio      = ASPECT_RATIOS.get(url);
+        Key    key;
+        if (ratio == null) {
+            key = new Key(url, roundUp(areaWidth), roundUp(areaHeight));
+        } else if (ratio > areaWidth / areaHeight) {
+            int decodedHeight = roundUp(areaHeight);
+            key = new Key(url, (int) Math.ceil(decodedHeight * ratio), decodedHeight);
+        } else {
+            int decodedWidth = roundUp(areaWidth);
+            key = new Key(url, decodedWidth, (int) Math.ceil(decodedWidth / ratio));
+        }
+
+        if (pending != null && pending.key.equals(key)) {
+            return;
+        }
+        dropPending();
+        if (shown != null && shown.key.equals(key)) {
+            return;
+        }
+        Lease lease = acquire(key);
+        pending      = lease.entry();
+        pendingImage = lease.image();
+        if (pendingImage.getProgress() < 1) {
+            pendingImage.progressProperty().addListener(loadListener);
+        } else {
+            loaded();
+        }
+    }
+
+    private void loaded() {
+        Image image = pendingImage;
+        if (image == null || image.getProgress() < 1) {
+            return;
+        }
+        image.progressProperty().removeListener(loadListener);
+        if (image.isError()) {
+            // Keep the previous image; the failed entry is evicted so the next request decodes again
+            evict(pending);
+            pending      = null;
+            pendingImage = null;
+            return;
+        }
+        if (shown != null) {
+            release(shown);
+        }
+        shown        = pending;
+        pending      = null;
+        pendingImage = null;
+        view.setImage(image);
+        crop();
+        ASPECT_RATIOS.putIfAbsent(url, image.getWidth() / image.getHeight());
+        request(); // Decodes again at the size that covers the area if this image only fits into it
+    }
+
+    private void dropPending() {
+        if (pending != null) {
+            pendingImage.progressProperty().removeListener(loadListener);
+            release(pending);
+            pending      = null;
+            pendingImage = null;
+        }
+    }
+
+    /**
+     * Shows the middle of the image with the aspect ratio of the area, so the image is never stretched.
+     */
+    private void crop() {
+        Image image = view.getImage();
+        if (image == null) {
+            return;
+        }
+        double aspectRatio = Math.max(1, width.get()) / Math.max(1, height.get());
+        double cropWidth   = Math.min(image.getWidth(), image.getHeight() * aspectRatio);
+        double cropHeight  = cropWidth / aspectRatio;
+        view.setViewport(new Rectangle2D((image.getWidth() - cropWidth) / 2, (image.getHeight() - cropHeight) / 2, cropWidth, cropHeight));
+    }
+
+    private static int roundUp(double size) {
+        return Math.max(1, (int) Math.ceil(size / SIZE_STEP)) * SIZE_STEP;
+    }
+
+    /**
+     * Counts the caller as a user of the cached image, decoding the image if no display holds it.
+     *
+     * @return The entry with its image, held strongly so the collector cannot clear it before the caller keeps it.
+     */
+    private static synchronized Lease acquire(Key key) {
+        pruneCleared();
+        Entry entry = CACHE.get(key);
+        Image image = entry != null ? entry.get() : null;
+        if (image == null || image.isError()) {
+            image = new Image(key.url(), key.width(), key.height(), true, true, true);
+            entry = new Entry(key, image);
+            CACHE.put(key, entry);
+        }
+        entry.users++;
+        return new Lease(entry, image);
+    }
+
+    /**
+     * Counts a user off an entry, dropping the entry once no display uses it.
+     */
+    private static synchronized void release(Entry entry) {
+        if (--entry.users <= 0) {
+            CACHE.remove(entry.key, entry);
+        }
+    }
+
+    private static synchronized void evict(Entry entry) {
+        CACHE.remove(entry.key, entry);
+    }
+
+    /**
+     * Drops the entries whose images the collector cleared; called with the class lock held.
+     */
+    private static void pruneCleared() {
+        Object cleared;
+        while ((cleared = CLEARED.poll()) != null) {
+            Entry entry = (Entry) cleared;
+            CACHE.remove(entry.key, entry);
+        }
+    }
+
+    private record Key(String url, int width, int height) {
+    }
+
+    private record Lease(Entry entry, Image image) {
+    }
+
+    /**
+     * A cached image with the number of displays using it. Users hold the image strongly through their view or their
+     * pending load; the cache itself only holds it softly.
+     */
+    private static final class Entry extends SoftReference<Image> {
+        private final Key key;
+        private       int users = 0; // Guarded by the class
+
+        private Entry(Key key, Image image) {
+            super(image, CLEARED);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.hyperion.fireworks.render;
+
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.ImagePattern;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+
+import java.util.Arrays;
+
+/**
+ * Renders fireworks onto a JavaFX {@link Canvas} with as few GraphicsContext state changes as possible. Instead of
+ * setting the alpha and fill and filling an oval for every tail position and particle, the ovals of a frame are
+ * collected, the alpha is quantized into {@value #ALPHA_BUCKETS} buckets, and at the end of the frame the ovals are
+ * sorted by fill and alpha bucket. Each group is then drawn as a single path with one {@code setFill}, one
+ * {@code setGlobalAlpha} and one {@code fill}.
+ * <p>
+ * Proportional gradients and patterns are laid out over the bounds of the shape they fill, so a shared path would stretch
+ * one gradient across every particle of the group. Groups with such a paint still share their {@code setFill} and
+ * {@code setGlobalAlpha}, but fill their ovals one by one.
+ * <p>
+ * Path segments are kept on the client side of the Canvas until the path is filled, so the command buffer grows by a
+ * few commands per group instead of three commands per particle. {@link #getLastFrameCommandCount()} reports the
+ * buffer commands issued for the last frame.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class BatchedCanvasRenderer implements FireworkRenderer {
+    private static final int    ALPHA_BUCKETS    = 16;
+    private static final int    INITIAL_CAPACITY = 1024;
+    private static final int    MAX_OVALS        = 1 << 24; // The oval index has to fit into the low bits of a sort key
+    private static final double PARTICLE_SIZE    = 5; // Particles are drawn with a fixed diameter
+
+    private final GraphicsContext graphicsContext;
+
+    private double[] ovalX      = new double[INITIAL_CAPACITY];
+    private double[] ovalY      = new double[INITIAL_CAPACITY];
+    private double[] ovalSize   = new double[INITIAL_CAPACITY];
+    private int[]    ovalBucket = new int[INITIAL_CAPACITY];
+    private Paint[]  ovalPaint  = new Paint[INITIAL_CAPACITY];
+    private long[]   sortKeys   = new long[INITIAL_CAPACITY];
+    private int      ovalCount  = 0;
+
+    private int frameCommandCount     = 0;
+    private int lastFrameCommandCount = 0;
+
+    public BatchedCanvasRenderer(Canvas canvas) {
+        this.graphicsContext = canvas.getGraphicsContext2D();
+    }
+
+    @Override
+    public void beginFrame(double width, double height) {
+        graphicsContext.clearRect(0, 0, width, height);
+        frameCommandCount = 1;
+        ovalCount         = 0;
+    }
+
+    @Override
+    public void drawRocket(double x, double y, double size, Paint color, Trail trail) {
+        int visible = trail.visibleSize();
+        for (int age = 0; age < visible; age++) {
+            addOval(trail.getX(age), trail.getY(age), trail.getSize(age), color, trail.getAlpha(age));
+        }
+        addOval(x, y, size, color, trail.getHeadAlpha());
+    }
+
+    @Override
+    public void drawParticles(ParticleStore particles, double interpolation) {
+        for (int i = 0; i < particles.size(); i++) {
+            if (particles.isVisible(i)) {
+                addOval(particles.getInterpolatedX(i, interpolation), particles.getInterpolatedY(i, interpolation), PARTICLE_SIZE, particles.getPaint(i),
+                        Math.random() * particles.getOpacity(i));
+            }
+        }
+    }
+
+    @Override
+    public void endFrame() {
+        for (int i = 0; i < ovalCount; i++) {
+            // Group by paint first, then by alpha bucket; ties between different paints with the same identity hash
+            // only split a group, they never merge two groups
+            sortKeys[i] = ((long) System.identityHashCode(ovalPaint[i]) << 32) | ((long) ovalBucket[i] << 24) | i;
+        }
+        Arrays.sort(sortKeys, 0, ovalCount);
+
+        Paint   currentPaint  = null;
+        int     currentBucket = -1;
+        boolean sharedPath    = false; // True while the current group is collected into one path
+        for (int k = 0; k < ovalCount; k++) {
+            int i = (int) (sortKeys[k] & (MAX_OVALS - 1));
+            if (ovalPaint[i] != currentPaint || ovalBucket[i] != currentBucket) {
+                if (sharedPath) {
+                    graphicsContext.fill();
+                    frameCommandCount++;
+                }
+                if (ovalPaint[i] != currentPaint) {
+                    currentPaint = ovalPaint[i];
+                    sharedPath   = canSharePath(currentPaint);
+                    graphicsContext.setFill(currentPaint);
+                    frameCommandCount++;
+                }
+                if (ovalBucket[i] != currentBucket) {
+                    currentBucket = ovalBucket[i];
+                    graphicsContext.setGlobalAlpha((currentBucket + 0.5) / ALPHA_BUCKETS);
+                    frameCommandCount++;
+                }
+                if (sharedPath) {
+                    graphicsContext.beginPath();
+                }
+            }
+            if (sharedPath) {
+                double radius  = ovalSize[i] / 2;
+                double centerX = ovalX[i] + radius;
+                double centerY = ovalY[i] + radius;
+                graphicsContext.moveTo(centerX + radius, centerY);
+                graphicsContext.arc(centerX, centerY, radius, radius, 0, 360);
+            } else {
+                graphicsContext.fillOval(ovalX[i], ovalY[i], ovalSize[i], ovalSize[i]);
+                frameCommandCount++;
+            }
+        }
+        if (sharedPath) {
+            graphicsContext.fill();
+            frameCommandCount++;
+        }
+
+        // Drop the paint references so they can be collected once their fireworks are gone
+        Arrays.fill(ovalPaint, 0, ovalCount, null);
+        lastFrameCommandCount = frameCommandCount;
+    }
+
+    @Override
+    public int getLastFrameCommandCount() {
+        return lastFrameCommandCount;
+    }
+
+    /**
+     * @return True if the paint looks the same whether it fills one oval or a path of many, that is if it does not
+     * depend on the bounds of the shape it fills.
+     */
+    private static boolean canSharePath(Paint paint) {
+        if (paint instanceof Color) {
+            return true;
+        } else if (paint instanceof RadialGradient radialGradient) {
+            return !radialGradient.isProportional();
+        } else if (paint instanceof LinearGradient linearGradient) {
+            return !linearGradient.isProportional();
+        } else if (paint instanceof ImagePattern imagePattern) {
+            return !imagePattern.isProportional();
+        }
+        return false;
+    }
+
+    private void addOval(double x, double y, double size, Paint paint, double alpha) {
+        if (size <= 0 || alpha <= 0) {
+            return;
+        }
+        if (ovalCount == ovalX.length) {
+            grow();
+        }
+        int i = ovalCount++;
+        ovalX[i]      = x;
+        ovalY[i]      = y;
+        ovalSize[i]   = size;
+        ovalPaint[i]  = paint;
+        ovalBucket[i] = Math.min(ALPHA_BUCKETS - 1, (int) (alpha * ALPHA_BUCKETS));
+    }
+
+    private void grow() {
+        int capacity = Math.min(MAX_OVALS, ovalX.length * 2);
+        if (capacity == ovalX.length) {
+            throw new IllegalStateException("Too many shapes in one frame: " + capacity);
+        }
+        ovalX      = Arrays.copyOf(ovalX, capacity);
+        ovalY      = Arrays.copyOf(ovalY, capacity);
+        ovalSize   = Arrays.copyOf(ovalSize, capacity);
+        ovalBucket = Arrays.copyOf(ovalBucket, capacity);
+        ovalPaint  = Arrays.copyOf(ovalPaint, capacity);
+        sortKeys   = Arrays.copyOf(sortKeys, capacity);
+    }
+}
@@ -0,0 +1,70 @@
+package com.hyperion.fireworks.render;
+
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+
+/**
+ * Renders fireworks straight onto a JavaFX {@link Canvas}, one fill call per tail position and particle.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class CanvasFireworkRenderer implements FireworkRenderer {
+    private static final double PARTICLE_SIZE = 5; // Particles are drawn with a fixed diameter
+
+    private final GraphicsContext graphicsContext;
+
+    private int frameCommandCount     = 0;
+    private int lastFrameCommandCount = 0;
+
+    public CanvasFireworkRenderer(Canvas canvas) {
+        this.graphicsContext = canvas.getGraphicsContext2D();
+    }
+
+    @Override
+    public void beginFrame(double width, double height) {
+        graphicsContext.clearRect(0, 0, width, height);
+        frameCommandCount = 1;
+    }
+
+    @Override
+    public void drawRocket(double x, double y, double size, Paint color, Trail trail) {
+        // The whole tail shares one paint; only the opacity changes along it
+        graphicsContext.setFill(color);
+        int visible = trail.visibleSize();
+        for (int age = 0; age < visible; age++) {
+            graphicsContext.setGlobalAlpha(trail.getAlpha(age));
+            graphicsContext.fillOval(trail.getX(age), trail.getY(age), trail.getSize(age), trail.getSize(age));
+        }
+        // Draw current position
+        graphicsContext.setGlobalAlpha(trail.getHeadAlpha());
+        graphicsContext.fillOval(x, y, size, size);
+        frameCommandCount += 2 * visible + 3;
+    }
+
+    @Override
+    public void drawParticles(ParticleStore particles, double interpolation) {
+        for (int i = 0; i < particles.size(); i++) {
+            if (!particles.isVisible(i)) {
+                continue;
+            }
+            graphicsContext.setGlobalAlpha(Math.random() * particles.getOpacity(i));  // Random flicker scaled by the opacity
+            graphicsContext.setFill(particles.getPaint(i));
+            graphicsContext.fillOval(particles.getInterpolatedX(i, interpolation), particles.getInterpolatedY(i, interpolation), PARTICLE_SIZE, PARTICLE_SIZE);
+            frameCommandCount += 3;
+        }
+    }
+
+    @Override
+    public void endFrame() {
+        lastFrameCommandCount = frameCommandCount;
+    }
+
+    @Override
+    public int getLastFrameCommandCount() {
+        return lastFrameCommandCount;
+    }
+}
@@ -0,0 +1,78 @@
+package com.hyperion.fireworks.render;
+
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import javafx.scene.paint.Paint;
+
+/**
+ * A FireworkRenderer draws the state of the simulation. The simulation calls {@link #beginFrame}, then one draw call per
+ * firework, then {@link #endFrame()}; what a frame turns into (Canvas commands, pixels, nothing at all) is up to the
+ * implementation.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public interface FireworkRenderer {
+    /**
+     * Starts a new frame.
+     *
+     * @param width
+     *         The width of the viewport in pixels.
+     * @param height
+     *         The height of the viewport in pixels.
+     */
+    void beginFrame(double width, double height);
+
+    /**
+     * Draws a rocket that has not exploded yet.
+     *
+     * @param x
+     *         The x position of the rocket, interpolated for the frame.
+     * @param y
+     *         The y position of the rocket, interpolated for the frame.
+     * @param size
+     *         The size of the rocket head.
+     * @param color
+     *         The paint of the rocket.
+     * @param trail
+     *         The recent positions of the rocket with the opacity and size of each, newest first.
+     */
+    void drawRocket(double x, double y, double size, Paint color, Trail trail);
+
+    /**
+     * Draws the particles of an exploded firework.
+     *
+     * @param particles
+     *         The particles to draw.
+     * @param interpolation
+     *         How far the frame lies between the previous and the current simulation step, from 0 to 1; pass it to
+     *         {@link ParticleStore#getInterpolatedX} and {@link ParticleStore#getInterpolatedY}.
+     */
+    void drawParticles(ParticleStore particles, double interpolation);
+
+    /**
+     * Finishes the current frame.
+     */
+    void endFrame();
+
+    /**
+     * @return The number of drawing and state-change calls the last finished frame issued to the underlying surface, or
+     * 0 if the renderer does not count them.
+     */
+    default int getLastFrameCommandCount() {
+        return 0;
+    }
+
+    /**
+     * @return The number of paints the renderer keeps prepared in its caches, or 0 if it has none.
+     */
+    default int getCachedPaintCount() {
+        return 0;
+    }
+
+    /**
+     * Stops the threads the renderer draws with, if it has any. A renderer that draws another frame starts new ones.
+     */
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,341 @@
+package com.hyperion.fireworks.render;
+
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders fireworks in software, straight into an array of premultiplied ARGB pixels, without going through a Canvas.
+ * Every tail position and particle becomes a splat: a disc in the colors of its paint surrounded by a soft halo. Splats
+ * are added to the pixels with saturating additive blending, so overlapping particles brighten each other like they do
+ * with {@code BlendMode.ADD}, and the halo stands in for the glow.
+ * <p>
+ * The splats of a frame are collected on the calling thread and rasterized at the end of the frame, in horizontal bands
+ * that are drawn in parallel on a ForkJoin pool; bands never share pixels, so no synchronization is needed. The finished
+ * pixels are copied into an off-heap {@link IntBuffer} that backs a {@link PixelBuffer}, which the {@link ImageView}
+ * returned by {@link #getView()} displays.
+ * <p>
+ * The renderer must be used on the JavaFX Application Thread.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class PixelBufferRenderer implements FireworkRenderer {
+    private static final double PARTICLE_SIZE     = 5; // Particles are drawn with a fixed diameter
+    private static final double GLOW_SCALE        = 2.0; // Halo radius relative to the disc radius
+    private static final double HALO_INTENSITY    = 0.35; // Brightness of the halo next to the disc
+    private static final int    LUT_SIZE          = 32; // Color samples per paint, indexed by squared distance
+    private static final int    MAX_CACHED_PAINTS = 4096;
+    private static final int    INITIAL_CAPACITY  = 1024;
+    private static final int    MIN_BAND_HEIGHT   = 16;
+
+    private final ImageView         view         = new ImageView();
+    private final Map<Paint, int[]> lookupTables = new IdentityHashMap<>();
+    private final int               threads;
+    private final int               bandCount;
+    private       ForkJoinPool      rasterPool = null; // Started by the first parallel frame
+
+    private int                    width;
+    private int                    height;
+    private int[]                  pixels;
+    private IntBuffer              buffer;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+
+    private double[] splatX      = new double[INITIAL_CAPACITY];
+    private double[] splatY      = new double[INITIAL_CAPACITY];
+    private double[] splatRadius = new double[INITIAL_CAPACITY];
+    private int[]    splatAlpha  = new int[INITIAL_CAPACITY]; // 0 to 256
+    private int[][]  splatColors = new int[INITIAL_CAPACITY][];
+    private int      splatCount  = 0;
+
+    /**
+     * Constructs a PixelBufferRenderer.
+     *
+     * @param threads
+     *         The number of threads that rasterize bands; 1 rasterizes on the calling thread.
+     */
+    public PixelBufferRenderer(int threads) {
+        this.threads    = threads;
+        this.bandCount  = Math.max(1, threads) * 4; // A few bands per thread keep the threads busy when splats cluster
+        view.setPreserveRatio(false);
+        view.setSmooth(false);
+    }
+
+    /**
+     * @return The node that displays the rendered frames.
+     */
+    public ImageView getView() {
+        return view;
+    }
+
+    @Override
+    public void beginFrame(double width, double height) {
+        resize(Math.max(1, (int) Math.ceil(width)), Math.max(1, (int) Math.ceil(height)));
+        splatCount = 0;
+    }
+
+    @Override
+    public void drawRocket(double x, double y, double size, Paint color, Trail trail) {
+        int[] colors  = lookupTable(color);
+        int   visible = trail.visibleSize();
+        for (int age = 0; age < visible; age++) {
+            addSplat(trail.getX(age), trail.getY(age), trail.getSize(age), colors, trail.getAlpha(age));
+        }
+        addSplat(x, y, size, colors, trail.getHeadAlpha());
+    }
+
+    @Override
+    public void drawParticles(ParticleStore particles, double interpolation) {
+        Paint paint  = null;
+        int[] colors = null;
+        for (int i = 0; i < particles.size(); i++) {
+            if (!particles.isVisible(i)) {
+                continue;
+            }
+            if (particles.getPaint(i) != paint) {
+                paint  = particles.getPaint(i);
+                colors = lookupTable(paint);
+            }
+            addSplat(particles.getInterpolatedX(i, interpolation), particles.getInterpolatedY(i, interpolation), PARTICLE_SIZE, colors,
+                     Math.random() * particles.getOpacity(i)); // Random flicker scaled by the opacity
+        }
+    }
+
+    @Override
+    public void endFrame() {
+        if (threads <= 1) {
+            rasterizeBands(0, bandCount);
+        } else {
+            if (rasterPool == null) {
+                rasterPool = new ForkJoinPool(threads);
+            }
+            rasterPool.invoke(new BandTask(0, bandCount));
+        }
+        Arrays.fill(splatColors, 0, splatCount, null);
+
+        buffer.clear();
+        buffer.put(pixels);
+        pixelBuffer.updateBuffer(updated -> null); // The whole image changed
+    }
+
+    @Override
+    public int getCachedPaintCount() {
+        return lookupTables.size();
+    }
+
+    @Override
+    public void shutdown() {
+        if (rasterPool != null) {
+            rasterPool.shutdown();
+            rasterPool = null;
+        }
+    }
+
+    private void resize(int width, int height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width  = width;
+        this.height = height;
+        pixels      = new int[width * height];
+        buffer      = ByteBuffer.allocateDirect(width * height * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        pixelBuffer = new PixelBuffer<>(width, height, buffer, PixelFormat.getIntArgbPreInstance());
+        view.setImage(new WritableImage(pixelBuffer));
+    }
+
+    private void addSplat(double x, double y, double size, int[] colors, double alpha) {
+        if (size <= 0 || alpha <= 0) {
+            return;
+        }
+        if (splatCount == splatX.length) {
+            grow();
+        }
+        int    i      = splatCount++;
+        double radius = size / 2;
+        // Canvas ovals are placed by their top-left corner; splats by their center
+        splatX[i]      = x + radius;
+        splatY[i]      = y + radius;
+        splatRadius[i] = radius * GLOW_SCALE;
+        splatAlpha[i]  = (int) (Math.min(alpha, 1.0) * 256);
+        splatColors[i] = colors;
+    }
+
+    private void grow() {
+        int capacity = splatX.length * 2;
+        splatX      = Arrays.copyOf(splatX, capacity);
+        splatY      = Arrays.copyOf(splatY, capacity);
+        splatRadius = Arrays.copyOf(splatRadius, capacity);
+        splatAlpha  = Arrays.copyOf(splatAlpha, capacity);
+        splatColors = Arrays.copyOf(splatColors, capacity);
+    }
+
+    private void rasterizeBands(int fromBand, int toBand) {
+        int bandHeight = Math.max(MIN_BAND_HEIGHT, (height + bandCount - 1) / bandCount);
+        for (int band = fromBand; band < toBand; band++) {
+            int top    = band * bandHeight;
+            int bottom = Math.min(height, top + bandHeight);
+            if (top < bottom) {
+                rasterizeBand(top, bottom);
+            }
+        }
+    }
+
+    /**
+     * Clears the rows {@code [top, bottom)} and adds every splat that overlaps them.
+     */
+    private void rasterizeBand(int top, int bottom) {
+        Arrays.fill(pixels, top * width, bottom * width, 0);
+        for (int i = 0; i < splatCount; i++) {
+            double centerX = splatX[i];
+            double centerY = splatY[i];
+            double radius  = splatRadius[i];
+            int    minY    = Math.max(top, (int) Math.floor(centerY - radius));
+            int    maxY    = Math.min(bottom - 1, (int) Math.ceil(centerY + radius));
+            if (minY > maxY) {
+                continue;
+            }
+            int minX = Math.max(0, (int) Math.floor(centerX - radius));
+            int maxX = Math.min(width - 1, (int) Math.ceil(centerX + radius));
+            if (minX > maxX) {
+                continue;
+            }
+            int[]  colors   = splatColors[i];
+            int    alpha    = splatAlpha[i];
+            double radiusSq = radius * radius;
+            double lutScale = (LUT_SIZE - 1) / radiusSq;
+            for (int py = minY; py <= maxY; py++) {
+                double dy  = py + 0.5 - centerY;
+                int    row = py * width;
+                for (int px = minX; px <= maxX; px++) {
+                    double dx         = px + 0.5 - centerX;
+                    double distanceSq = dx * dx + dy * dy;
+                    if (distanceSq < radiusSq) {
+                        pixels[row + px] = addSaturated(pixels[row + px], colors[(int) (distanceSq * lutScale)], alpha);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a premultiplied ARGB color, scaled by {@code alpha / 256}, to a pixel, clamping every channel at 255.
+     */
+    private static int addSaturated(int pixel, int color, int alpha) {
+        int a = (pixel >>> 24) + (((color >>> 24) * alpha) >> 8);
+        int r = ((pixel >> 16) & 0xFF) + ((((color >> 16) & 0xFF) * alpha) >> 8);
+        int g = ((pixel >> 8) & 0xFF) + ((((color >> 8) & 0xFF) * alpha) >> 8);
+        int b = (pixel & 0xFF) + (((color & 0xFF) * alpha) >> 8);
+        return Math.min(a, 255) << 24 | Math.min(r, 255) << 16 | Math.min(g, 255) << 8 | Math.min(b, 255);
+    }
+
+    /**
+     * Returns the premultiplied colors of a splat of the given paint, indexed by the squared distance from the center
+     * normalized to {@code [0, LUT_SIZE - 1]}. The inner disc follows the paint (a radial gradient runs from the center
+     * to the rim) and the halo fades the rim color out.
+     */
+    private int[] lookupTable(Paint paint) {
+        int[] colors = lookupTables.get(paint);
+        if (colors == null) {
+            if (lookupTables.size() >= MAX_CACHED_PAINTS) {
+                lookupTables.clear(); // Paints are random; start over rather than track which ones are still in use
+            }
+            colors = new int[LUT_SIZE];
+            double disc = 1 / GLOW_SCALE;
+            for (int k = 0; k < LUT_SIZE; k++) {
+                double distance = Math.sqrt(k / (double) (LUT_SIZE - 1));
+                Color  color;
+                double intensity;
+                if (distance <= disc) {
+                    color     = colorAt(paint, distance / disc);
+                    intensity = 1.0;
+                } else {
+                    double falloff = 1 - (distance - disc) / (1 - disc);
+                    color     = colorAt(paint, 1.0);
+                    intensity = HALO_INTENSITY * falloff * falloff;
+                }
+                colors[k] = premultiply(color, intensity);
+            }
+            lookupTables.put(paint, colors);
+        }
+        return colors;
+    }
+
+    private static Color colorAt(Paint paint, double offset) {
+        if (paint instanceof Color color) {
+            return color;
+        }
+        if (paint instanceof RadialGradient gradient) {
+            return colorAt(gradient.getStops(), offset);
+        }
+        if (paint instanceof LinearGradient gradient) {
+            return colorAt(gradient.getStops(), offset);
+        }
+        return Color.WHITE;
+    }
+
+    private static Color colorAt(List<Stop> stops, double offset) {
+        if (stops.isEmpty()) {
+            return Color.WHITE;
+        }
+        Stop previous = stops.get(0);
+        if (offset <= previous.getOffset()) {
+            return previous.getColor();
+        }
+        for (Stop stop : stops) {
+            if (offset <= stop.getOffset()) {
+                double span = stop.getOffset() - previous.getOffset();
+                double t    = span > 0 ? (offset - previous.getOffset()) / span : 1.0;
+                return previous.getColor().interpolate(stop.getColor(), t);
+            }
+            previous = stop;
+        }
+        return previous.getColor();
+    }
+
+    private static int premultiply(Color color, double intensity) {
+        double alpha = color.getOpacity() * intensity;
+        int    a     = (int) Math.round(alpha * 255);
+        int    r     = (int) Math.round(color.getRed() * alpha * 255);
+        int    g     = (int) Math.round(color.getGreen() * alpha * 255);
+        int    b     = (int) Math.round(color.getBlue() * alpha * 255);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private final class BandTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        BandTask(int from, int to) {
+            this.from = from;
+            this.to   = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                rasterizeBands(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BandTask(from, middle), new BandTask(middle, to));
+            }
+        }
+    }
+}
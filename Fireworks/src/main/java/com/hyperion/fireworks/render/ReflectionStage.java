@@ -0,0 +1,176 @@
+package com.hyperion.fireworks.render;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+
+/**
+ * Draws a faded, mirrored copy of the bottom of the fireworks surface below it, like a {@code Reflection} effect with a
+ * top offset of 0. Instead of re-rendering the whole surface through an effect pass on every frame, the stage snapshots
+ * only the reflected fraction of the surface, at a reduced resolution and only every few pulses. The mirror and the fade
+ * are baked into a small image in one pass over its pixels, and an {@link ImageView} scales that image up below the
+ * surface.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class ReflectionStage {
+    private final Node                   source;
+    private final ReadOnlyDoubleProperty width;
+    private final ReadOnlyDoubleProperty height;
+    private final double                 scale;
+    private final double                 fraction;
+    private final double                 topOpacity;
+    private final double                 bottomOpacity;
+    private final int                    updateInterval;
+    private final ImageView              view               = new ImageView();
+    private final SnapshotParameters     snapshotParameters = new SnapshotParameters();
+    private final AnimationTimer         timer;
+
+    private WritableImage snapshot;
+    private WritableImage mirror;
+    private int[]         pixels;
+    private int           mirrorWidth;
+    private int           mirrorHeight;
+    private long          pulse   = 0;
+    private boolean       enabled = true;
+
+    /**
+     * Constructs a ReflectionStage.
+     *
+     * @param source
+     *         The node to reflect.
+     * @param width
+     *         The width of the source.
+     * @param height
+     *         The height of the source.
+     * @param scale
+     *         The resolution of the reflection relative to the source, above 0 and at most 1.
+     * @param fraction
+     *         The fraction of the source, measured from its bottom edge, that is reflected.
+     * @param topOpacity
+     *         The opacity of the reflection next to the source.
+     * @param bottomOpacity
+     *         The opacity of the far edge of the reflection.
+     * @param updateInterval
+     *         The number of pulses between two updates of the reflection.
+     */
+    public ReflectionStage(Node source, ReadOnlyDoubleProperty width, ReadOnlyDoubleProperty height, double scale, double fraction, double topOpacity,
+                           double bottomOpacity, int updateInterval) {
+        this.source         = source;
+        this.width          = width;
+        this.height         = height;
+        this.scale          = scale;
+        this.fraction       = fraction;
+        this.topOpacity     = topOpacity;
+        this.bottomOpacity  = bottomOpacity;
+        this.updateInterval = Math.max(1, updateInterval);
+
+        snapshotParameters.setFill(Color.TRANSPARENT);
+        snapshotParameters.setTransform(new Scale(scale, scale));
+
+        view.setPreserveRatio(false);
+        view.setBlendMode(BlendMode.ADD);
+        view.setMouseTransparent(true);
+        view.layoutYProperty().bind(height);
+        view.fitWidthProperty().bind(width);
+        view.fitHeightProperty().bind(height.multiply(fraction));
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (enabled && pulse++ % ReflectionStage.this.updateInterval == 0) {
+                    update();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return The node that shows the reflection; add it next to the source.
+     */
+    public ImageView getView() {
+        return view;
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Shows or hides the reflection; while hidden it is not updated.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        view.setVisible(enabled);
+    }
+
+    /**
+     * Re-captures the reflected part of the source and bakes the mirror and the fade into the reflection image.
+     */
+    public void update() {
+        resize();
+        if (mirror == null) {
+            return;
+        }
+        source.snapshot(snapshotParameters, snapshot);
+        snapshot.getPixelReader().getPixels(0, 0, mirrorWidth, mirrorHeight, PixelFormat.getIntArgbPreInstance(), pixels, 0, mirrorWidth);
+
+        // Row 0 of the snapshot is the top of the reflected part, which ends up furthest from the source
+        for (int row = 0; row < mirrorHeight; row++) {
+            double distance = (mirrorHeight - 1 - row) / (double) mirrorHeight;
+            int    opacity  = (int) ((topOpacity + (bottomOpacity - topOpacity) * distance) * 256);
+            int    offset   = row * mirrorWidth;
+            for (int i = offset; i < offset + mirrorWidth; i++) {
+                pixels[i] = fade(pixels[i], opacity);
+            }
+        }
+        for (int row = 0; row < mirrorHeight; row++) {
+            mirror.getPixelWriter().setPixels(0, mirrorHeight - 1 - row, mirrorWidth, 1, PixelFormat.getIntArgbPreInstance(), pixels, row * mirrorWidth,
+                                              mirrorWidth);
+        }
+    }
+
+    private void resize() {
+        int reflectedWidth  = (int) Math.ceil(width.get() * scale);
+        int reflectedHeight = (int) Math.ceil(height.get() * fraction * scale);
+        if (reflectedWidth == mirrorWidth && reflectedHeight == mirrorHeight) {
+            return;
+        }
+        mirrorWidth  = reflectedWidth;
+        mirrorHeight = reflectedHeight;
+        if (mirrorWidth <= 0 || mirrorHeight <= 0) {
+            mirror = null;
+            view.setImage(null);
+            return;
+        }
+        snapshotParameters.setViewport(new Rectangle2D(0, height.get() * scale - mirrorHeight, mirrorWidth, mirrorHeight));
+        snapshot = new WritableImage(mirrorWidth, mirrorHeight);
+        mirror   = new WritableImage(mirrorWidth, mirrorHeight);
+        pixels   = new int[mirrorWidth * mirrorHeight];
+        view.setImage(mirror);
+    }
+
+    /**
+     * Scales every channel of a premultiplied ARGB pixel by {@code opacity / 256}.
+     */
+    private static int fade(int pixel, int opacity) {
+        int a = ((pixel >>> 24) * opacity) >> 8;
+        int r = (((pixel >> 16) & 0xFF) * opacity) >> 8;
+        int g = (((pixel >> 8) & 0xFF) * opacity) >> 8;
+        int b = ((pixel & 0xFF) * opacity) >> 8;
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+}
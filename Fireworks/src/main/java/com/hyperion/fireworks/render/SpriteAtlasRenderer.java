@@ -0,0 +1,265 @@
+package com.hyperion.fireworks.render;
+
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Renders fireworks onto a JavaFX {@link Canvas} by copying pre-rendered sprites instead of filling ovals. The random
+ * vibrant paints are mostly gradients, which are expensive to rasterize on every fill; here each paint is rasterized
+ * once at a few quantized sizes into an offscreen atlas canvas, the atlas is snapshotted into a single
+ * {@link WritableImage}, and particles and tail positions are drawn with {@code drawImage} sub-rectangle blits.
+ * <p>
+ * The atlas holds a bounded number of paints. Paints that have not been drawn for a number of frames are evicted, and
+ * when the atlas is full the least recently used paint makes room. Snapshotting the atlas is a GPU read-back, so new
+ * paints are batched up and the atlas image is rebuilt at most once every {@code rebuildInterval} frames; until then a
+ * new paint is drawn with a plain {@code fillOval}.
+ * <p>
+ * Like every Canvas renderer, this renderer must be used on the JavaFX Application Thread.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public class SpriteAtlasRenderer implements FireworkRenderer {
+    private static final int[]  SPRITE_SIZES    = {4, 8, 16}; // Quantized sprite diameters, smallest first
+    private static final int    PADDING         = 1; // Transparent border that keeps neighbouring sprites from bleeding in
+    private static final int    CELL_SIZE       = SPRITE_SIZES[SPRITE_SIZES.length - 1] + 2 * PADDING;
+    private static final int    ENTRY_WIDTH     = CELL_SIZE * SPRITE_SIZES.length; // One row of size cells per paint
+    private static final int    ENTRIES_PER_ROW = 16;
+    private static final double PARTICLE_SIZE   = 5; // Particles are drawn with a fixed diameter
+
+    private final GraphicsContext    graphicsContext;
+    private final Canvas             atlasCanvas;
+    private final GraphicsContext    atlasGraphics;
+    private final WritableImage      atlasImage;
+    private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+    private final Map<Paint, Sprite> sprites            = new IdentityHashMap<>();
+    private final int[]              freeSlots;
+    private final int                maxIdleFrames;
+    private final int                rebuildInterval;
+
+    private int     freeSlotCount;
+    private long    frame            = 0;
+    private long    lastRebuildFrame = Long.MIN_VALUE / 2;
+    private boolean atlasDirty       = false;
+    private double  currentAlpha     = -1;
+
+    private int frameCommandCount     = 0;
+    private int lastFrameCommandCount = 0;
+
+    /**
+     * Constructs a SpriteAtlasRenderer.
+     *
+     * @param canvas
+     *         The canvas to draw on.
+     * @param cacheSize
+     *         The maximum number of paints kept in the atlas.
+     * @param maxIdleFrames
+     *         The number of frames a paint may go undrawn before it is evicted.
+     * @param rebuildInterval
+     *         The minimum number of frames between two rebuilds of the atlas image.
+     */
+    public SpriteAtlasRenderer(Canvas canvas, int cacheSize, int maxIdleFrames, int rebuildInterval) {
+        int slots = Math.max(1, cacheSize);
+        int rows  = (slots + ENTRIES_PER_ROW - 1) / ENTRIES_PER_ROW;
+
+        this.graphicsContext = canvas.getGraphicsContext2D();
+        this.atlasCanvas     = new Canvas(ENTRY_WIDTH * Math.min(slots, ENTRIES_PER_ROW), CELL_SIZE * rows);
+        this.atlasGraphics   = atlasCanvas.getGraphicsContext2D();
+        this.atlasImage      = new WritableImage((int) atlasCanvas.getWidth(), (int) atlasCanvas.getHeight());
+        this.maxIdleFrames   = maxIdleFrames;
+        this.rebuildInterval = Math.max(1, rebuildInterval);
+        this.freeSlots       = new int[slots];
+        this.freeSlotCount   = slots;
+        for (int i = 0; i < slots; i++) {
+            freeSlots[i] = slots - 1 - i; // Hand out the low slots first
+        }
+        snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+
+    @Override
+    public void beginFrame(double width, double height) {
+        frame++;
+        graphicsContext.clearRect(0, 0, width, height);
+        currentAlpha      = -1; // The alpha left over from the last frame is unknown after other code drew on the canvas
+        frameCommandCount = 1;
+    }
+
+    @Override
+    public void drawRocket(double x, double y, double size, Paint color, Trail trail) {
+        Sprite sprite  = lookup(color);
+        int    visible = trail.visibleSize();
+        for (int age = 0; age < visible; age++) {
+            draw(sprite, color, trail.getX(age), trail.getY(age), trail.getSize(age), trail.getAlpha(age));
+        }
+        draw(sprite, color, x, y, size, trail.getHeadAlpha());
+    }
+
+    @Override
+    public void drawParticles(ParticleStore particles, double interpolation) {
+        Paint  paint  = null;
+        Sprite sprite = null;
+        for (int i = 0; i < particles.size(); i++) {
+            if (!particles.isVisible(i)) {
+                continue;
+            }
+            if (particles.getPaint(i) != paint) {
+                paint  = particles.getPaint(i);
+                sprite = lookup(paint);
+            }
+            draw(sprite, paint, particles.getInterpolatedX(i, interpolation), particles.getInterpolatedY(i, interpolation), PARTICLE_SIZE,
+                 Math.random() * particles.getOpacity(i)); // Random flicker scaled by the opacity
+        }
+    }
+
+    @Override
+    public void endFrame() {
+        if (maxIdleFrames > 0 && frame % maxIdleFrames == 0) {
+            evictIdle();
+        }
+        if (atlasDirty && frame - lastRebuildFrame >= rebuildInterval) {
+            rebuildAtlas();
+        }
+        lastFrameCommandCount = frameCommandCount;
+    }
+
+    @Override
+    public int getLastFrameCommandCount() {
+        return lastFrameCommandCount;
+    }
+
+    /**
+     * @return The number of paints currently held by the atlas.
+     */
+    @Override
+    public int getCachedPaintCount() {
+        return sprites.size();
+    }
+
+    private void draw(Sprite sprite, Paint paint, double x, double y, double size, double alpha) {
+        if (size <= 0 || alpha <= 0) {
+            return;
+        }
+        if (alpha != currentAlpha) {
+            graphicsContext.setGlobalAlpha(alpha);
+            currentAlpha = alpha;
+            frameCommandCount++;
+        }
+        if (sprite != null && sprite.baked) {
+            int sizeClass = sizeClassOf(size);
+            graphicsContext.drawImage(atlasImage, sprite.cellX(sizeClass), sprite.cellY(), SPRITE_SIZES[sizeClass], SPRITE_SIZES[sizeClass], x, y, size, size);
+            frameCommandCount++;
+        } else {
+            // The paint is not in the atlas image yet
+            graphicsContext.setFill(paint);
+            graphicsContext.fillOval(x, y, size, size);
+            frameCommandCount += 2;
+        }
+    }
+
+    private Sprite lookup(Paint paint) {
+        Sprite sprite = sprites.get(paint);
+        if (sprite == null) {
+            int slot = allocateSlot();
+            if (slot < 0) {
+                return null; // Every cached paint is in use this frame; draw this one directly
+            }
+            sprite = new Sprite(slot);
+            sprites.put(paint, sprite);
+            rasterize(sprite, paint);
+        }
+        sprite.lastUsedFrame = frame;
+        return sprite;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount == 0) {
+            evictLeastRecentlyUsed();
+        }
+        return freeSlotCount > 0 ? freeSlots[--freeSlotCount] : -1;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Map.Entry<Paint, Sprite> oldest = null;
+        for (Map.Entry<Paint, Sprite> entry : sprites.entrySet()) {
+            if (entry.getValue().lastUsedFrame < frame && (oldest == null || entry.getValue().lastUsedFrame < oldest.getValue().lastUsedFrame)) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            Sprite sprite = sprites.remove(oldest.getKey());
+            freeSlots[freeSlotCount++] = sprite.slot;
+        }
+    }
+
+    private void evictIdle() {
+        Iterator<Sprite> iterator = sprites.values().iterator();
+        while (iterator.hasNext()) {
+            Sprite sprite = iterator.next();
+            if (frame - sprite.lastUsedFrame > maxIdleFrames) {
+                iterator.remove();
+                freeSlots[freeSlotCount++] = sprite.slot;
+            }
+        }
+    }
+
+    private void rasterize(Sprite sprite, Paint paint) {
+        atlasGraphics.clearRect(sprite.cellX(0) - PADDING, sprite.cellY() - PADDING, ENTRY_WIDTH, CELL_SIZE);
+        atlasGraphics.setFill(paint);
+        for (int sizeClass = 0; sizeClass < SPRITE_SIZES.length; sizeClass++) {
+            atlasGraphics.fillOval(sprite.cellX(sizeClass), sprite.cellY(), SPRITE_SIZES[sizeClass], SPRITE_SIZES[sizeClass]);
+        }
+        atlasDirty = true;
+    }
+
+    private void rebuildAtlas() {
+        atlasCanvas.snapshot(snapshotParameters, atlasImage);
+        for (Sprite sprite : sprites.values()) {
+            sprite.baked = true;
+        }
+        atlasDirty       = false;
+        lastRebuildFrame = frame;
+    }
+
+    /**
+     * @return The smallest sprite size that is at least {@code size}, so sprites are only ever scaled down.
+     */
+    private static int sizeClassOf(double size) {
+        for (int sizeClass = 0; sizeClass < SPRITE_SIZES.length - 1; sizeClass++) {
+            if (size <= SPRITE_SIZES[sizeClass]) {
+                return sizeClass;
+            }
+        }
+        return SPRITE_SIZES.length - 1;
+    }
+
+    /**
+     * A paint's place in the atlas.
+     */
+    private static final class Sprite {
+        private final int     slot;
+        private       long    lastUsedFrame;
+        private       boolean baked = false; // True once the atlas image contains this sprite
+
+        private Sprite(int slot) {
+            this.slot = slot;
+        }
+
+        private int cellX(int sizeClass) {
+            return (slot % ENTRIES_PER_ROW) * ENTRY_WIDTH + sizeClass * CELL_SIZE + PADDING;
+        }
+
+        private int cellY() {
+            return (slot / ENTRIES_PER_ROW) * CELL_SIZE + PADDING;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.hyperion.fireworks.show;
+
+import com.hyperion.fireworks.firework_styles.FireworkType;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A show file written by {@link ShowCompiler}, read through a memory-mapped {@link FileChannel}. Opening a show only maps
+ * the file and checks its header, so a show of any length starts instantly; the operating system pages cues in as they
+ * are read. Cues are fixed-size records sorted by time, so {@link #seek(double)} finds the cue at any timestamp by binary
+ * search without parsing anything.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ * header, 16 bytes: magic "FWSH", version, cue count, reserved
+ * cue,    32 bytes: time in seconds (double), seed (long), x (float), y (float), angle in degrees (float),
+ *                   firework type ordinal (byte), 3 bytes padding
+ * </pre>
+ * The accessors read straight from the mapping and allocate nothing. A CompiledShow is immutable and may be read by any
+ * number of threads.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class CompiledShow implements AutoCloseable {
+    static final int MAGIC       = 0x46575348; // "FWSH"
+    static final int VERSION     = 1;
+    static final int HEADER_SIZE = 16;
+    static final int CUE_SIZE    = 32;
+
+    static final int TIME_OFFSET  = 0;
+    static final int SEED_OFFSET  = 8;
+    static final int X_OFFSET     = 16;
+    static final int Y_OFFSET     = 20;
+    static final int ANGLE_OFFSET = 24;
+    static final int TYPE_OFFSET  = 28;
+
+    private static final FireworkType[] TYPES = FireworkType.values();
+
+    private final FileChannel      channel;
+    private final MappedByteBuffer buffer;
+    private final int              cueCount;
+
+    private CompiledShow(FileChannel channel, MappedByteBuffer buffer, int cueCount) {
+        this.channel  = channel;
+        this.buffer   = buffer;
+        this.cueCount = cueCount;
+    }
+
+    /**
+     * Maps a compiled show file.
+     *
+     * @param path
+     *         The show file.
+     *
+     * @return The show.
+     *
+     * @throws IOException
+     *         if the file cannot be read or is not a compiled show of this version.
+     */
+    public static CompiledShow open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a compiled show");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a compiled show");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException(path + " has show file version " + buffer.getInt(4) + ", expected " + VERSION);
+            }
+            int cueCount = buffer.getInt(8);
+            if (cueCount < 0 || HEADER_SIZE + (long) cueCount * CUE_SIZE != size) {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+            return new CompiledShow(channel, buffer, cueCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of cues in the show.
+     */
+    public int size() {
+        return cueCount;
+    }
+
+    /**
+     * @return The time of the last cue in seconds, 0 for an empty show.
+     */
+    public double getDuration() {
+        return cueCount > 0 ? getTime(cueCount - 1) : 0;
+    }
+
+    /**
+     * Finds the first cue at or after a point in the show.
+     *
+     * @param time
+     *         The show time in seconds.
+     *
+     * @return The index of the first cue whose time is at least {@code time}, or {@link #size()} if there is none.
+     */
+    public int seek(double time) {
+        int low  = 0;
+        int high = cueCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getTime(middle) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The time of a cue in seconds from the start of the show.
+     */
+    public double getTime(int cue) {
+        return buffer.getDouble(position(cue) + TIME_OFFSET);
+    }
+
+    public FireworkType getType(int cue) {
+        return TYPES[buffer.get(position(cue) + TYPE_OFFSET)];
+    }
+
+    /**
+     * @return The horizontal launch position of a cue, as a fraction of the viewport width.
+     */
+    public double getX(int cue) {
+        return buffer.getFloat(position(cue) + X_OFFSET);
+    }
+
+    /**
+     * @return The vertical launch position of a cue, as a fraction of the viewport height; 1 is the bottom edge.
+     */
+    public double getY(int cue) {
+        return buffer.getFloat(position(cue) + Y_OFFSET);
+    }
+
+    /**
+     * @return The launch angle of a cue in degrees, or NaN to let the firework pick its own.
+     */
+    public double getAngle(int cue) {
+        return buffer.getFloat(position(cue) + ANGLE_OFFSET);
+    }
+
+    /**
+     * @return The seed of the firework's random stream, which makes its colors and explosion the same on every run.
+     */
+    public long getSeed(int cue) {
+        return buffer.getLong(position(cue) + SEED_OFFSET);
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once the show is no longer reachable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int position(int cue) {
+        if (cue < 0 || cue >= cueCount) {
+            throw new IndexOutOfBoundsException("Cue " + cue + " of " + cueCount);
+        }
+        return HEADER_SIZE + cue * CUE_SIZE;
+    }
+}
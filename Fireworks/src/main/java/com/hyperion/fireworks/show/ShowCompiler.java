@@ -0,0 +1,163 @@
+package com.hyperion.fireworks.show;
+
+import com.hyperion.fireworks.firework_styles.FireworkType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiles a text cue sheet into the binary show file read by {@link CompiledShow}. A cue sheet has one cue per line:
+ * <pre>
+ * # time   type    x     y     angle  seed
+ * 0.5      SMALL   0.25  1.0   80     17
+ * 1:02.25  DOUBLE  0.5   1.0   -      4242
+ * </pre>
+ * <ul>
+ *     <li>time: seconds from the start of the show, either plain ({@code 62.25}) or minutes and seconds
+ *     ({@code 1:02.25});</li>
+ *     <li>type: a {@link FireworkType} name, in any case;</li>
+ *     <li>x and y: the launch position as fractions of the viewport width and height, so a show fits any display size;
+ *     y = 1 is the bottom edge;</li>
+ *     <li>angle: the launch angle in degrees, or {@code -} to let the firework pick one;</li>
+ *     <li>seed: the seed of the firework's random stream.</li>
+ * </ul>
+ * Fields are separated by whitespace or commas; blank lines and text after {@code #} are ignored. Cues do not need to be
+ * in order: they are sorted by time, keeping the sheet order of cues with the same time.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+public final class ShowCompiler {
+    private ShowCompiler() {
+    }
+
+    /**
+     * Compiles a cue sheet file.
+     *
+     * @param source
+     *         The cue sheet, UTF-8.
+     * @param target
+     *         The show file to write; an existing file is replaced.
+     *
+     * @return The number of cues compiled.
+     *
+     * @throws IOException
+     *         if a file cannot be read or written.
+     * @throws IllegalArgumentException
+     *         if a line of the cue sheet is malformed.
+     */
+    public static int compile(Path source, Path target) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            return compile(reader, target);
+        }
+    }
+
+    /**
+     * Compiles a cue sheet.
+     *
+     * @param reader
+     *         The cue sheet.
+     * @param target
+     *         The show file to write; an existing file is replaced.
+     *
+     * @return The number of cues compiled.
+     *
+     * @throws IOException
+     *         if the sheet cannot be read or the file cannot be written.
+     * @throws IllegalArgumentException
+     *         if a line of the cue sheet is malformed.
+     */
+    public static int compile(BufferedReader reader, Path target) throws IOException {
+        List<Cue> cues = new ArrayList<>();
+        String    line;
+        int       lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).strip();
+            if (!content.isEmpty()) {
+                cues.add(parse(content, lineNumber));
+            }
+        }
+        cues.sort(Comparator.comparingDouble(Cue::time)); // Stable, so equal times keep their sheet order
+        write(cues, target);
+        return cues.size();
+    }
+
+    /**
+     * Compiles a cue sheet from the command line: {@code ShowCompiler <cue sheet> <show file>}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ShowCompiler <cue sheet> <show file>");
+            System.exit(2);
+        }
+        int count = compile(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Compiled " + count + " cues into " + args[1]);
+    }
+
+    private static Cue parse(String content, int lineNumber) {
+        String[] fields = content.split("[\\s,]+");
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": expected time, type, x, y, angle and seed, found " + fields.length + " fields");
+        }
+        Cue cue;
+        try {
+            cue = new Cue(parseTime(fields[0]), FireworkType.valueOf(fields[1].toUpperCase(Locale.ROOT)), Float.parseFloat(fields[2]),
+                          Float.parseFloat(fields[3]), fields[4].equals("-") ? Float.NaN : Float.parseFloat(fields[4]), Long.parseLong(fields[5]));
+        } catch (IllegalArgumentException e) { // Also covers NumberFormatException and unknown firework types
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+        }
+        if (!(cue.time() >= 0) || Double.isInfinite(cue.time())) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": time must be a non-negative number of seconds");
+        }
+        return cue;
+    }
+
+    private static double parseTime(String field) {
+        int colon = field.indexOf(':');
+        if (colon < 0) {
+            return Double.parseDouble(field);
+        }
+        return Integer.parseInt(field.substring(0, colon)) * 60.0 + Double.parseDouble(field.substring(colon + 1));
+    }
+
+    private static void write(List<Cue> cues, Path target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CompiledShow.HEADER_SIZE + cues.size() * CompiledShow.CUE_SIZE);
+        buffer.putInt(CompiledShow.MAGIC)
+              .putInt(CompiledShow.VERSION)
+              .putInt(cues.size())
+              .putInt(0);
+        for (Cue cue : cues) {
+            int position = buffer.position();
+            buffer.putDouble(position + CompiledShow.TIME_OFFSET, cue.time())
+                  .putLong(position + CompiledShow.SEED_OFFSET, cue.seed())
+                  .putFloat(position + CompiledShow.X_OFFSET, cue.x())
+                  .putFloat(position + CompiledShow.Y_OFFSET, cue.y())
+                  .putFloat(position + CompiledShow.ANGLE_OFFSET, cue.angle())
+                  .put(position + CompiledShow.TYPE_OFFSET, (byte) cue.type().ordinal());
+            buffer.position(position + CompiledShow.CUE_SIZE);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private record Cue(double time, FireworkType type, float x, float y, float angle, long seed) {
+    }
+}
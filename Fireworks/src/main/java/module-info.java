@@ -2,8 +2,17 @@ module com.hyperion.fireworks {
     requires javafx.controls;
     requires javafx.fxml;
     requires com.hyperion.paintrandomizer;
+    requires java.management;
+    requires jdk.management;
 
 
     opens com.hyperion.fireworks to javafx.fxml;
     exports com.hyperion.fireworks;
+    exports com.hyperion.fireworks.engine;
+    exports com.hyperion.fireworks.firework_styles;
+    exports com.hyperion.fireworks.metrics;
+    exports com.hyperion.fireworks.particle;
+    exports com.hyperion.fireworks.pool;
+    exports com.hyperion.fireworks.render;
+    exports com.hyperion.fireworks.show;
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.hyperion.fireworks;
+
+import com.hyperion.fireworks.engine.QualityLevel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the quality governor holds the rate the screen repaints at, which with a fixed timestep is not the
+ * simulation rate.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class QualityGovernorTest {
+    private static final int PULSES = 2000;
+
+    @Test
+    void fastSimulationOnASixtyHertzDisplayKeepsFullDetail() {
+        FireworksUtil.Builder builder = new FireworksUtil.Builder().loopMode(LoopMode.FIXED_TIMESTEP).frameRate(120);
+
+        assertEquals(QualityLevel.HIGH, pulse(new QualityGovernor(FireworksUtil.repaintRate(builder)), 60));
+    }
+
+    @Test
+    void slowSimulationStillLowersDetailWhenRepaintsRunLate() {
+        FireworksUtil.Builder builder = new FireworksUtil.Builder().loopMode(LoopMode.FIXED_TIMESTEP).frameRate(30);
+
+        assertEquals(QualityLevel.MINIMAL, pulse(new QualityGovernor(FireworksUtil.repaintRate(builder)), 40));
+    }
+
+    @Test
+    void timelineHoldsItsFrameRate() {
+        FireworksUtil.Builder builder = new FireworksUtil.Builder().frameRate(30);
+
+        assertEquals(QualityLevel.HIGH, pulse(new QualityGovernor(FireworksUtil.repaintRate(builder)), 30));
+    }
+
+    /**
+     * Reports evenly spaced frames to the governor.
+     *
+     * @return The level the governor settled on.
+     */
+    private static QualityLevel pulse(QualityGovernor qualityGovernor, double pulseRate) {
+        long pulseNanos = Math.round(1_000_000_000L / pulseRate);
+        for (int pulse = 0; pulse < PULSES; pulse++) {
+            qualityGovernor.frame(pulse * pulseNanos);
+        }
+        return qualityGovernor.getLevel();
+    }
+}
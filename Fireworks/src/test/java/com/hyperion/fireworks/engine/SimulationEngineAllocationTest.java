@@ -0,0 +1,63 @@
+package com.hyperion.fireworks.engine;
+
+import com.hyperion.fireworks.firework_styles.FireworkType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a warmed-up engine steps its fireworks without allocating: rockets climbing, bursting and fading out, for
+ * every firework type.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class SimulationEngineAllocationTest {
+    private static final int WARM_UP_ROUNDS  = 30; // Grows the pools and stores and gets the hot paths compiled
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int ROUND_STEPS     = 800; // Long enough for every type to climb, burst and fade out
+    private static final int BATCH_SIZE      = 4;
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @ParameterizedTest
+    @EnumSource(FireworkType.class)
+    void steadyStateStepsDoNotAllocate(FireworkType fireworkType) {
+        // A fixed palette, since rotating it generates new paints by design
+        SimulationEngine engine = new SimulationEngine.Builder().width(1200).height(1000).seed(42L).paletteRefreshInterval(0).build();
+
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            runRound(engine, fireworkType);
+        }
+        long allocated = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            allocated += runRound(engine, fireworkType);
+        }
+
+        assertEquals(0, allocated, "Bytes allocated by " + MEASURED_ROUNDS * ROUND_STEPS + " steady-state steps of " + fireworkType);
+        assertEquals(0, engine.getLiveFireworkCount());
+    }
+
+    /**
+     * Launches a batch and steps it until it has faded out.
+     *
+     * @return The bytes allocated by the steps after the launch.
+     */
+    private long runRound(SimulationEngine engine, FireworkType fireworkType) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            engine.queueFirework(fireworkType);
+        }
+        engine.launchFireworks(BATCH_SIZE);
+        // The launch is queued and admitted outside the measurement: admission gives every firework a fresh random stream
+        engine.step();
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int step = 0; step < ROUND_STEPS; step++) {
+            engine.step();
+        }
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+}
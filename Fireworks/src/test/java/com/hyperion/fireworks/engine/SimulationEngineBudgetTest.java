@@ -0,0 +1,109 @@
+package com.hyperion.fireworks.engine;
+
+import com.hyperion.fireworks.firework_styles.FireworkSpec;
+import com.hyperion.fireworks.firework_styles.FireworkType;
+import com.hyperion.fireworks.particle.DecayFactor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that fireworks give their whole particle budget back, including fireworks whose follow-up burst goes off after
+ * the first burst has faded, and that a tight budget is shared out the same way however many threads move the fireworks.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class SimulationEngineBudgetTest {
+    private static final int DRAIN_STEPS     = 2000;
+    private static final int CONTENDED_STEPS = 600;
+
+    // The first burst fades within 20 steps, well before the follow-up 40 steps after it
+    private static final FireworkSpec LATE_FOLLOW_UP = FireworkType.DOUBLE.getDefaultSpec().toBuilder().decayFactor(DecayFactor.FAST).followUp(150, 40).build();
+
+    @Test
+    void followUpBurstShowsAfterTheFirstBurstFaded() {
+        SimulationEngine engine = createEngine();
+        engine.queueFirework(FireworkType.DOUBLE);
+        engine.launchFireworks(1);
+
+        boolean burst      = false;
+        boolean faded      = false;
+        boolean followedUp = false;
+        for (int step = 0; step < DRAIN_STEPS && !followedUp; step++) {
+            engine.step();
+            int particles = engine.getLiveParticleCount();
+            if (!burst) {
+                burst = particles > 0;
+            } else if (!faded) {
+                // Between the bursts the firework has no particles but has to stay alive for its follow-up
+                faded = particles == 0 && engine.getLiveFireworkCount() == 1;
+            } else {
+                followedUp = particles > 0;
+            }
+        }
+        assertTrue(faded, "The firework was retired before its follow-up burst");
+        assertTrue(followedUp, "The follow-up burst never showed");
+    }
+
+    @Test
+    void budgetDrainsForFollowUpsThatOutliveTheFirstBurst() {
+        SimulationEngine engine = createEngine();
+        for (int volley = 0; volley < 20; volley++) {
+            for (int i = 0; i < 3; i++) {
+                engine.queueFirework(FireworkType.DOUBLE);
+            }
+            engine.launchFireworks(3);
+            for (int step = 0; step < 30; step++) {
+                engine.step();
+            }
+        }
+        for (int step = 0; step < DRAIN_STEPS; step++) {
+            engine.step();
+        }
+
+        assertEquals(0, engine.getLiveFireworkCount());
+        assertEquals(0, engine.getLiveParticleCount());
+        assertEquals(0, engine.getPendingEffectCount());
+        assertEquals(0, engine.getParticleBudget().getUsed(), "Particle budget still held after every firework died");
+    }
+
+    @Test
+    void parallelStepsShareATightBudgetLikeSerialSteps() {
+        int[] serial   = stepContended(1);
+        int[] parallel = stepContended(4);
+
+        assertArrayEquals(serial, parallel, "Live particles per step, serial versus parallel");
+    }
+
+    /**
+     * Steps volleys of sparkle fireworks whose secondary bursts outgrow a small budget.
+     *
+     * @return The live particles after every step.
+     */
+    private static int[] stepContended(int parallelism) {
+        SimulationEngine engine = new SimulationEngine.Builder().width(1200).height(1000).seed(11L).particleBudget(1500).parallelism(parallelism).build();
+        int[]            counts = new int[CONTENDED_STEPS];
+        try {
+            for (int step = 0; step < CONTENDED_STEPS; step++) {
+                if (step % 20 == 0) {
+                    for (int i = 0; i < 8; i++) {
+                        engine.queueFirework(FireworkType.SPARKLE);
+                    }
+                    engine.launchFireworks(8);
+                }
+                engine.step();
+                counts[step] = engine.getLiveParticleCount();
+            }
+        } finally {
+            engine.shutdown();
+        }
+        return counts;
+    }
+
+    private static SimulationEngine createEngine() {
+        return new SimulationEngine.Builder().width(1200).height(1000).seed(7L).particleBudget(5000).fireworkSpec(FireworkType.DOUBLE, LATE_FOLLOW_UP).build();
+    }
+}
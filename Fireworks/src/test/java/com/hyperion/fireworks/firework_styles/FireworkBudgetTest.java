@@ -0,0 +1,89 @@
+package com.hyperion.fireworks.firework_styles;
+
+import com.hyperion.fireworks.engine.ParticleBudget;
+import com.hyperion.fireworks.engine.Viewport;
+import javafx.geometry.Point2D;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that fireworks contending for a tight particle budget get the same share whatever order they are moved in, as
+ * happens when they are moved on several threads.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class FireworkBudgetTest {
+    private static final Viewport VIEWPORT  = new Viewport(1200, 1000);
+    private static final Point2D  START_POS = new Point2D(600, 1000);
+    private static final int      BURST     = FireworkType.SPARKLE.getDefaultSpec().getBurstSize();
+    private static final int      SPARE     = 200; // Budget left for the secondary bursts, far less than they want
+    private static final int      STEPS     = 400;
+
+    @Test
+    void moveOrderDoesNotDecideWhoGetsTheBudget() {
+        int[][] inOrder  = run(false);
+        int[][] reversed = run(true);
+
+        assertArrayEquals(inOrder[0], reversed[0], "Particles of the first firework per step");
+        assertArrayEquals(inOrder[1], reversed[1], "Particles of the second firework per step");
+    }
+
+    @Test
+    void budgetIsNeverOverdrawn() {
+        ParticleBudget budget    = new ParticleBudget(2 * BURST + SPARE);
+        Firework[]     fireworks = {sparkle(budget), sparkle(budget)};
+        int            peak      = 0;
+        for (int step = 0; step < STEPS; step++) {
+            for (Firework firework : fireworks) {
+                firework.move();
+            }
+            for (Firework firework : fireworks) {
+                firework.settleParticleBudget();
+            }
+            int live = fireworks[0].getParticles().size() + fireworks[1].getParticles().size();
+            assertTrue(live <= budget.getCapacity(), "Live particles " + live + " over the budget at step " + step);
+            peak = Math.max(peak, live);
+        }
+        assertEquals(budget.getCapacity(), peak, "The secondary bursts never used the spare budget");
+    }
+
+    /**
+     * Moves two identical sparkle fireworks that share a budget, settling them in the same order every step.
+     *
+     * @return The particles of each firework after every step.
+     */
+    private static int[][] run(boolean reverseMoves) {
+        ParticleBudget budget = new ParticleBudget(2 * BURST + SPARE);
+        Firework       first  = sparkle(budget);
+        Firework       second = sparkle(budget);
+        int[][]        counts = new int[2][STEPS];
+        for (int step = 0; step < STEPS; step++) {
+            if (reverseMoves) {
+                second.move();
+                first.move();
+            } else {
+                first.move();
+                second.move();
+            }
+            first.settleParticleBudget();
+            second.settleParticleBudget();
+            counts[0][step] = first.getParticles().size();
+            counts[1][step] = second.getParticles().size();
+        }
+        return counts;
+    }
+
+    private static Firework sparkle(ParticleBudget budget) {
+        Firework firework = new SparkleFirework(START_POS, VIEWPORT, () -> Math.toRadians(90), 1 / 60.0, () -> 30.0);
+        firework.setRandom(new SplittableRandom(3));
+        firework.reset(START_POS, () -> Math.toRadians(90), () -> 30.0);
+        firework.admit(budget, budget.tryAcquire(BURST), 1.0);
+        return firework;
+    }
+}
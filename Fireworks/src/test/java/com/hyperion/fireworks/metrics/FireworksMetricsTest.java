@@ -0,0 +1,70 @@
+package com.hyperion.fireworks.metrics;
+
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import javafx.scene.paint.Paint;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that shows can publish their metrics side by side, and that a show publishing again does not fail.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class FireworksMetricsTest {
+    private static final FireworkRenderer NO_RENDERER = new FireworkRenderer() {
+        @Override
+        public void beginFrame(double width, double height) {
+        }
+
+        @Override
+        public void drawRocket(double x, double y, double size, Paint color, Trail trail) {
+        }
+
+        @Override
+        public void drawParticles(ParticleStore particles, double interpolation) {
+        }
+
+        @Override
+        public void endFrame() {
+        }
+    };
+
+    @Test
+    void registeringTwiceUnderTheSameNameIsANoOp() {
+        FireworksMetrics metrics = createMetrics();
+        try {
+            metrics.register("again");
+            assertDoesNotThrow(() -> metrics.register("again"));
+            assertTrue(metrics.isRegistered());
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(metrics.isRegistered());
+    }
+
+    @Test
+    void showsWithDifferentNamesPublishSideBySide() {
+        FireworksMetrics first  = createMetrics();
+        FireworksMetrics second = createMetrics();
+        try {
+            first.register("first");
+            assertDoesNotThrow(() -> second.register("second"));
+            assertThrows(IllegalStateException.class, () -> createMetrics().register("first"));
+        } finally {
+            first.unregister();
+            second.unregister();
+        }
+    }
+
+    private static FireworksMetrics createMetrics() {
+        return new FireworksMetrics(new SimulationEngine.Builder().build(), NO_RENDERER);
+    }
+}
@@ -0,0 +1,69 @@
+package com.hyperion.fireworks.particle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a copied store carries on like the store it was copied from, including the sub-emitters that have yet to
+ * fire, as the benchmarks rely on when they rewind a firework to a saved store.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+class ParticleStoreTest {
+    private static final SubEmitter SPARKLE   = new SubEmitter.Builder().atAge(10).particleCount(10).build();
+    private static final int        PARTICLES = 20;
+    private static final int        FRAMES    = 40;
+
+    @Test
+    void copyKeepsPendingEmissions() {
+        ParticleStore original = new ParticleStore();
+        for (int i = 0; i < PARTICLES; i++) {
+            original.add(100, 100, i * 0.1, -1, 0, 4, DecayFactor.MEDIUM.getDecayRate(), Particle.FLAGS, SPARKLE);
+        }
+        original.move(new SplittableRandom(1));
+        ParticleStore copy = new ParticleStore();
+        copy.copyFrom(original);
+        assertEquals(PARTICLES, copy.getPendingEmissionCount());
+
+        int originalFired = run(original);
+        int copyFired     = run(copy);
+
+        assertEquals(PARTICLES, originalFired);
+        assertEquals(originalFired, copyFired, "Sub-emitters fired by the copy");
+        assertEquals(original.size(), copy.size());
+        assertTrue(copy.size() > PARTICLES, "The copy never spawned");
+    }
+
+    @Test
+    void storeCopiedBackEmitsAgain() {
+        ParticleStore store = new ParticleStore();
+        for (int i = 0; i < PARTICLES; i++) {
+            store.add(100, 100, i * 0.1, -1, 0, 4, DecayFactor.MEDIUM.getDecayRate(), Particle.FLAGS, SPARKLE);
+        }
+        ParticleStore saved = new ParticleStore();
+        saved.copyFrom(store);
+
+        int firstRun = run(store);
+        store.copyFrom(saved);
+        int rewoundRun = run(store);
+
+        assertEquals(PARTICLES, firstRun);
+        assertEquals(firstRun, rewoundRun, "Sub-emitters fired after rewinding");
+    }
+
+    private static int run(ParticleStore store) {
+        SplittableRandom random = new SplittableRandom(7);
+        int              fired  = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            store.compact();
+            store.move(random);
+            fired += store.emit(BurstGenerator.getDefault(), random, wanted -> wanted);
+        }
+        return fired;
+    }
+}
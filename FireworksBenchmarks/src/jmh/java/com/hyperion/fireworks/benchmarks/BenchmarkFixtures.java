@@ -0,0 +1,40 @@
+package com.hyperion.fireworks.benchmarks;
+
+import com.hyperion.fireworks.engine.Viewport;
+import com.hyperion.fireworks.firework_styles.Firework;
+import javafx.geometry.Point2D;
+
+import java.util.function.Supplier;
+
+/**
+ * Shared scene setup for the benchmarks: the same viewport, launch position and launch parameters as the simulation
+ * app, so the numbers match what the display actually runs.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+final class BenchmarkFixtures {
+    static final double           WIDTH                      = 1200;
+    static final double           HEIGHT                     = 1000;
+    static final double           TIME_STEP                  = 1 / 60.0;
+    static final Point2D          START_POS                  = new Point2D(WIDTH / 2, HEIGHT);
+    static final Supplier<Double> LAUNCH_ANGLE_SUPPLIER      = () -> Math.toRadians(80 + (Math.random() * 20));
+    static final Supplier<Double> MIN_LAUNCH_HEIGHT_SUPPLIER = () -> (HEIGHT / (Firework.SCALE * 1.5)) / 2.0;
+
+    private BenchmarkFixtures() {
+    }
+
+    static Viewport viewport() {
+        return new Viewport(WIDTH, HEIGHT);
+    }
+
+    /**
+     * Resets the firework and steps it until its rocket has exploded.
+     */
+    static void launchAndExplode(Firework firework) {
+        firework.reset(START_POS, LAUNCH_ANGLE_SUPPLIER, MIN_LAUNCH_HEIGHT_SUPPLIER);
+        while (!firework.hasExploded()) {
+            firework.move();
+        }
+    }
+}
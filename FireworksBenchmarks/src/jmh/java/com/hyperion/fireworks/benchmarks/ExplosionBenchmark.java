@@ -0,0 +1,102 @@
+package com.hyperion.fireworks.benchmarks;
+
+import com.hyperion.fireworks.engine.Viewport;
+import com.hyperion.fireworks.firework_styles.Firework;
+import com.hyperion.fireworks.firework_styles.FireworkSpec;
+import com.hyperion.fireworks.firework_styles.FireworkType;
+import com.hyperion.fireworks.particle.*;
+import javafx.geometry.Point2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.hyperion.fireworks.benchmarks.BenchmarkFixtures.*;
+
+/**
+ * Measures {@code Firework.createExplosionParticles} for a 300 particle burst, for every {@link DecayFactor} and every
+ * particle kind, at a coarse and at the default angular resolution, against the same burst copied from the prebaked
+ * templates of a {@link FireworkSpec}.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExplosionBenchmark {
+    private static final int BURST_SIZE = 300;
+
+    public enum Kind {
+        PARTICLE(Particle.FLAGS),
+        STROBE(StrobeParticle.FLAGS),
+        SPARKLE(SparkleParticle.FLAGS);
+
+        private final int flags;
+
+        Kind(int flags) {
+            this.flags = flags;
+        }
+    }
+
+    @Param
+    private DecayFactor decayFactor;
+
+    @Param
+    private Kind kind;
+
+    @Param({"360", "4096"})
+    private int angleSteps;
+
+    private BurstFirework firework;
+    private FireworkSpec  spec;
+
+    @Setup(Level.Trial)
+    public void createFirework() {
+        firework = new BurstFirework(START_POS, viewport(), LAUNCH_ANGLE_SUPPLIER, TIME_STEP, MIN_LAUNCH_HEIGHT_SUPPLIER);
+        firework.setBurstGenerator(new BurstGenerator(angleSteps));
+        firework.setRandom(new SplittableRandom(42));
+        spec = new FireworkSpec.Builder().particleCount(BURST_SIZE).speed(5, 7).size(5, 7).decayFactor(decayFactor).flags(kind.flags).build();
+    }
+
+    @Benchmark
+    public ParticleStore createExplosionParticles() {
+        return firework.burst(BURST_SIZE, decayFactor, kind.flags);
+    }
+
+    @Benchmark
+    public ParticleStore spawnFromTemplate() {
+        return firework.burst(spec);
+    }
+
+    /**
+     * Exposes the protected explosion factory of {@link Firework} to the benchmark.
+     */
+    static final class BurstFirework extends Firework {
+        BurstFirework(Point2D position, Viewport viewport, Supplier<Double> launchAngleSupplier, double timeStep, Supplier<Double> minLaunchHeightSupplier) {
+            super(position, viewport, launchAngleSupplier, timeStep, minLaunchHeightSupplier);
+        }
+
+        ParticleStore burst(int numParticles, DecayFactor decayFactor, int flags) {
+            particles.clear();
+            createExplosionParticles(numParticles, 5, 7, 5, 7, decayFactor, flags);
+            return particles;
+        }
+
+        ParticleStore burst(FireworkSpec spec) {
+            particles.clear();
+            spec.burst(particles, random, spec.getParticleCount(), x, y, BurstGenerator.RANDOM_PAINT);
+            return particles;
+        }
+
+        @Override
+        public FireworkType getType() {
+            return FireworkType.LARGE;
+        }
+
+        @Override
+        public void explode() {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.hyperion.fireworks.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hyperion.fireworks.benchmarks.BenchmarkFixtures.*;
+
+/**
+ * Measures {@code Firework.move()} for a rocket in flight and for an exploded firework updating its particles.
+ * Each invocation rewinds the firework and steps it a fixed number of frames, so the score is the cost of one frame and
+ * {@code gc.alloc.rate.norm} is the number of bytes a steady-state frame allocates, which should be 0.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FireworkMoveBenchmark {
+    private static final int FLIGHT_FRAMES   = 30; // Well below the time any rocket needs to reach its apex
+    private static final int PARTICLE_FRAMES = 50; // Half the life of a slow-decaying burst
+
+    private RewindableFireworks.Large rocket;
+    private RewindableFireworks.Large exploded;
+
+    @Setup(Level.Trial)
+    public void createFireworks() {
+        rocket   = new RewindableFireworks.Large(viewport());
+        exploded = new RewindableFireworks.Large(viewport());
+        rocket.save();
+        launchAndExplode(exploded);
+        exploded.save();
+    }
+
+    @Setup(Level.Invocation)
+    public void rewindFireworks() {
+        rocket.rewind();
+        exploded.rewind();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLIGHT_FRAMES)
+    public RewindableFireworks.Large moveBeforeExplosion() {
+        for (int i = 0; i < FLIGHT_FRAMES; i++) {
+            rocket.move();
+        }
+        return rocket;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PARTICLE_FRAMES)
+    public RewindableFireworks.Large moveAfterExplosion() {
+        for (int i = 0; i < PARTICLE_FRAMES; i++) {
+            exploded.move();
+        }
+        return exploded;
+    }
+}
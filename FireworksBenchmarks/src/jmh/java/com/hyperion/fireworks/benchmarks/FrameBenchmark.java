@@ -0,0 +1,90 @@
+package com.hyperion.fireworks.benchmarks;
+
+import com.hyperion.fireworks.engine.SimulationEngine;
+import com.hyperion.fireworks.firework_styles.Trail;
+import com.hyperion.fireworks.particle.ParticleStore;
+import com.hyperion.fireworks.render.FireworkRenderer;
+import javafx.scene.paint.Paint;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hyperion.fireworks.benchmarks.BenchmarkFixtures.*;
+
+/**
+ * Measures the equivalent of one {@code FireworksUtil.drawFrame()} with a given number of live fireworks: a simulation
+ * step followed by a render pass. The render pass goes to a renderer that feeds every coordinate to a {@link Blackhole},
+ * so the walk over the fireworks is measured without the cost of a real Canvas.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameBenchmark {
+    @Param({"3", "10", "30"})
+    private int liveFireworks;
+
+    private SimulationEngine engine;
+    private BlackholeRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void createEngine(Blackhole blackhole) {
+        engine   = new SimulationEngine.Builder().width(WIDTH)
+                                                 .height(HEIGHT)
+                                                 .launchAngleSupplier(LAUNCH_ANGLE_SUPPLIER)
+                                                 .build();
+        renderer = new BlackholeRenderer(blackhole);
+        // Run into a steady state with a mix of rockets and bursts
+        for (int i = 0; i < 600; i++) {
+            frame();
+        }
+    }
+
+    @Benchmark
+    public void frame() {
+        int missing = liveFireworks - engine.getLiveFireworkCount();
+        if (missing > 0) {
+            engine.launchFireworks(missing);
+        }
+        engine.step();
+        engine.render(renderer);
+    }
+
+    private static final class BlackholeRenderer implements FireworkRenderer {
+        private final Blackhole blackhole;
+
+        BlackholeRenderer(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void beginFrame(double width, double height) {
+            blackhole.consume(width);
+        }
+
+        @Override
+        public void drawRocket(double x, double y, double size, Paint color, Trail trail) {
+            for (int age = 0; age < trail.visibleSize(); age++) {
+                blackhole.consume(trail.getX(age) + trail.getY(age) + trail.getAlpha(age) + trail.getSize(age));
+            }
+            blackhole.consume(color);
+        }
+
+        @Override
+        public void drawParticles(ParticleStore particles, double interpolation) {
+            for (int i = 0; i < particles.size(); i++) {
+                if (particles.isVisible(i)) {
+                    blackhole.consume(particles.getInterpolatedX(i, interpolation) + particles.getInterpolatedY(i, interpolation) + particles.getOpacity(i));
+                    blackhole.consume(particles.getPaint(i));
+                }
+            }
+        }
+
+        @Override
+        public void endFrame() {
+        }
+    }
+}
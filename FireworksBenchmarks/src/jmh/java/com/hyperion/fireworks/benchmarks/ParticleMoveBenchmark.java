@@ -0,0 +1,46 @@
+package com.hyperion.fireworks.benchmarks;
+
+import com.hyperion.fireworks.particle.DecayFactor;
+import com.hyperion.fireworks.particle.Particle;
+import com.hyperion.fireworks.particle.ParticleStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one particle physics step over stores of different sizes; divide the score by the particle count for the
+ * per-particle cost.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParticleMoveBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int particleCount;
+
+    private final SplittableRandom blinkRandom = new SplittableRandom(7);
+
+    private ParticleStore particles;
+
+    @Setup(Level.Iteration)
+    public void createParticles() {
+        SplittableRandom random = new SplittableRandom(42);
+        particles = new ParticleStore(particleCount);
+        int paletteIndex = 0;
+        for (int i = 0; i < particleCount; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed = random.nextDouble(1, 7);
+            Particle.create(particles, 600, 400, Math.cos(angle) * speed, Math.sin(angle) * speed, paletteIndex, 5, DecayFactor.SUPER_SUPER_SLOW.getDecayRate());
+        }
+    }
+
+    @Benchmark
+    public ParticleStore move() {
+        particles.move(blinkRandom);
+        return particles;
+    }
+}
@@ -0,0 +1,68 @@
+package com.hyperion.fireworks.benchmarks;
+
+import com.hyperion.fireworks.engine.Viewport;
+import com.hyperion.fireworks.firework_styles.LargeFirework;
+import com.hyperion.fireworks.firework_styles.SparkleFirework;
+import com.hyperion.fireworks.particle.ParticleStore;
+
+import static com.hyperion.fireworks.benchmarks.BenchmarkFixtures.*;
+
+/**
+ * Fireworks that can save their simulation state and rewind to it without allocating. Benchmarks rewind between
+ * invocations instead of resetting, because a reset draws new paints and would show up in the allocation profile.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+final class RewindableFireworks {
+    private RewindableFireworks() {
+    }
+
+    static final class Large extends LargeFirework {
+        private final ParticleStore savedParticles = new ParticleStore();
+        private       double        savedX;
+        private       double        savedY;
+        private       double        savedVelocityX;
+        private       double        savedVelocityY;
+        private       boolean       savedHasExploded;
+
+        Large(Viewport viewport) {
+            super(START_POS, viewport, LAUNCH_ANGLE_SUPPLIER, TIME_STEP, MIN_LAUNCH_HEIGHT_SUPPLIER);
+        }
+
+        void save() {
+            savedX           = x;
+            savedY           = y;
+            savedVelocityX   = velocityX;
+            savedVelocityY   = velocityY;
+            savedHasExploded = hasExploded;
+            savedParticles.copyFrom(particles);
+        }
+
+        void rewind() {
+            x           = savedX;
+            y           = savedY;
+            velocityX   = savedVelocityX;
+            velocityY   = savedVelocityY;
+            hasExploded = savedHasExploded;
+            previousPositions.clear();
+            particles.copyFrom(savedParticles);
+        }
+    }
+
+    static final class Sparkle extends SparkleFirework {
+        private final ParticleStore savedParticles = new ParticleStore();
+
+        Sparkle(Viewport viewport) {
+            super(START_POS, viewport, LAUNCH_ANGLE_SUPPLIER, TIME_STEP, MIN_LAUNCH_HEIGHT_SUPPLIER);
+        }
+
+        void save() {
+            savedParticles.copyFrom(particles);
+        }
+
+        void rewind() {
+            particles.copyFrom(savedParticles);
+        }
+    }
+}
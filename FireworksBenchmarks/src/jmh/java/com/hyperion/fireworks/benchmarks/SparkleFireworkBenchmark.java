@@ -0,0 +1,62 @@
+package com.hyperion.fireworks.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hyperion.fireworks.benchmarks.BenchmarkFixtures.*;
+
+/**
+ * Measures {@code SparkleFirework.move()} across the window in which its sparkle particles burst into secondary
+ * explosions. The score is the average cost of one frame.
+ *
+ * @author Colin Jokisch
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SparkleFireworkBenchmark {
+    private static final int FRAMES = 40; // Medium decay reaches the sparkle threshold after about 17 frames
+
+    private RewindableFireworks.Sparkle firework;
+
+    @Setup(Level.Trial)
+    public void createFirework() {
+        firework = new RewindableFireworks.Sparkle(viewport());
+        launchAndExplode(firework);
+        firework.save();
+        checkSecondaryExplosions();
+    }
+
+    @Setup(Level.Invocation)
+    public void rewindFirework() {
+        firework.rewind();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public RewindableFireworks.Sparkle moveWithSecondaryExplosions() {
+        for (int i = 0; i < FRAMES; i++) {
+            firework.move();
+        }
+        return firework;
+    }
+
+    /**
+     * Makes sure a rewound firework bursts its sparkles again, so the score covers the secondary explosions rather than a
+     * plain fade.
+     */
+    private void checkSecondaryExplosions() {
+        firework.rewind();
+        int burst = firework.getParticles().size();
+        int peak  = burst;
+        for (int i = 0; i < FRAMES; i++) {
+            firework.move();
+            peak = Math.max(peak, firework.getParticles().size());
+        }
+        if (peak <= burst) {
+            throw new IllegalStateException("The rewound sparkle firework did not explode again, peaking at " + peak + " particles");
+        }
+    }
+}
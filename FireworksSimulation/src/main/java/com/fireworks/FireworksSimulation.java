@@ -26,7 +26,8 @@ public class FireworksSimulation extends Application {
     public void start(Stage stage) {
         Canvas        canvas        = new Canvas(WIDTH, HEIGHT);
         FireworksUtil.Builder builder = new FireworksUtil.Builder();
-        builder.width(WIDTH).height(HEIGHT).frameRate(60).startPos(new Point2D(200, 750)).launchAngleSupplier(() -> Math.toRadians(45 + (Math.random() * 60)));
+        builder.width(WIDTH).height(HEIGHT).frameRate(60).startPos(new Point2D(200, 750)).launchAngleSupplier(() -> Math.toRadians(45 + (Math.random() * 60)))
+               .metricsName("fireworks");
         FireworksUtil fireworksUtil = builder.build();
         fireworksUtil.start();
         fireworksUtil.bindCanvasSize(canvas.widthProperty(), canvas.heightProperty());